@@ -2,8 +2,10 @@ package com.chrishsu.taiwanDivineCha;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling // 排程工作 (例如 Redis 庫存寫回與對帳)
 public class TaiwanDivineChalApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,91 @@
+package com.chrishsu.taiwanDivineCha.cache;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 產品目錄版本號：每次產品寫入都會遞增，用來產生產品 API 的 ETag 與 Last-Modified。
+ * 判斷是否可以回傳 304 只需讀取這個值，不需要查詢資料庫或序列化 JSON。
+ * Redis 可用時版本號存放於 Redis，所有節點產生相同的 ETag；否則退回各節點自己的計數器
+ * (帶上節點啟動時間，避免重啟後與舊 ETag 重複)。
+ * ETag 一律為弱驗證碼 (W/)：同一份內容會依 Accept-Encoding 以 gzip 或未壓縮兩種表示法回應，
+ * 強驗證碼要求位元組完全相同，兩種表示法不可共用。
+ */
+@Component
+public class CatalogVersion {
+
+    private final RedisProductCacheTier redisTier;
+    private final long localEpoch = System.currentTimeMillis();
+    private final AtomicLong localCounter = new AtomicLong();
+
+    private volatile Snapshot current;
+
+    public CatalogVersion(RedisProductCacheTier redisTier) {
+        this.redisTier = redisTier;
+    }
+
+    @PostConstruct
+    public void init() {
+        refreshFromShared(truncateToSeconds(localEpoch));
+    }
+
+    public Snapshot current() {
+        return current;
+    }
+
+    // 本節點寫入產品後呼叫 (需在快取失效之後，避免新版本號搭配到舊資料)
+    public void onLocalChange() {
+        long now = truncateToSeconds(System.currentTimeMillis());
+        current = redisTier.incrementCatalogVersion(now)
+                .map(version -> new Snapshot("r" + version, now))
+                .orElseGet(() -> nextLocal(now));
+    }
+
+    // 收到其他節點的失效通知後呼叫，讀取寫入節點已遞增的共用版本號
+    public void onRemoteChange() {
+        refreshFromShared(truncateToSeconds(System.currentTimeMillis()));
+    }
+
+    private void refreshFromShared(long fallbackLastModified) {
+        current = redisTier.readCatalogVersion(fallbackLastModified)
+                .map(shared -> new Snapshot("r" + shared[0], shared[1]))
+                .orElseGet(() -> nextLocal(fallbackLastModified));
+    }
+
+    private Snapshot nextLocal(long lastModified) {
+        return new Snapshot("l" + Long.toString(localEpoch, 36) + "-" + localCounter.incrementAndGet(), lastModified);
+    }
+
+    // HTTP 日期只有秒的精度
+    private static long truncateToSeconds(long millis) {
+        return millis - millis % 1000;
+    }
+
+    public static class Snapshot {
+
+        private final String version;
+        private final String eTag;
+        private final long lastModified;
+
+        public Snapshot(String version, long lastModified) {
+            this.version = version;
+            this.eTag = "W/\"" + version + "\"";
+            this.lastModified = lastModified;
+        }
+
+        public String getETag() {
+            return eTag;
+        }
+
+        // 目錄版本號再加上其他識別 (例如庫存摘要)，用於內容不只取決於目錄版本號的回應
+        public String getETag(String suffix) {
+            return "W/\"" + version + "-" + suffix + "\"";
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.chrishsu.taiwanDivineCha.cache;
+
+import com.chrishsu.taiwanDivineCha.constant.ProductCategory;
+import com.chrishsu.taiwanDivineCha.dto.CacheStatsDto;
+import com.chrishsu.taiwanDivineCha.dto.ProductDto;
+import com.chrishsu.taiwanDivineCha.dto.ProductSummaryDto;
+import com.chrishsu.taiwanDivineCha.event.ProductChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 產品目錄的本地快取 (TTL + 容量上限)。
+ * 列表快取 ProductSummaryDto，單筆快取完整的 ProductDto；命中時不需查詢資料庫，也不需重新執行 ProductMapper 與 JSON 欄位解析。
+ * 本地未命中時先查 RedisProductCacheTier (跨節點共用的第二層)，兩層都未命中才執行 loader 查詢資料庫。
+ * 產品寫入成功 (交易提交) 後，依 ProductChangedEvent 失效對應的項目，並透過 Redis 通知其他節點。
+ */
+@Component
+public class ProductCatalogCache {
+
+    private static final String ALL_PRODUCTS_KEY = "all";
+    private static final String CATEGORY_KEY_PREFIX = "category:";
+
+    // 列表快取只有「全部」與每個分類各一筆
+    private static final long LIST_CACHE_MAX_SIZE = ProductCategory.values().length + 1L;
+
+    private final Cache<String, List<ProductSummaryDto>> listCache;
+    private final Cache<String, ProductDto> productCache;
+    private final RedisProductCacheTier redisTier;
+    private final CatalogVersion catalogVersion;
+    private final ProductResponseCache productResponseCache;
+
+    public ProductCatalogCache(RedisProductCacheTier redisTier, CatalogVersion catalogVersion,
+                               ProductResponseCache productResponseCache,
+                               @Value("${app.cache.product.ttl-seconds:600}") long ttlSeconds,
+                               @Value("${app.cache.product.max-size:1000}") long maxSize) {
+        this.redisTier = redisTier;
+        this.catalogVersion = catalogVersion;
+        this.productResponseCache = productResponseCache;
+        Duration ttl = Duration.ofSeconds(ttlSeconds);
+        this.listCache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(LIST_CACHE_MAX_SIZE)
+                .recordStats()
+                .build();
+        this.productCache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+    }
+
+    public List<ProductSummaryDto> getAllProducts(Supplier<List<ProductSummaryDto>> loader) {
+        return listCache.get(ALL_PRODUCTS_KEY, key -> loadList(key, loader));
+    }
+
+    public List<ProductSummaryDto> getProductsByCategory(ProductCategory category, Supplier<List<ProductSummaryDto>> loader) {
+        return listCache.get(categoryKey(category), key -> loadList(key, loader));
+    }
+
+    // loader 拋出的 RuntimeException (例如 ResourceNotFoundException) 會原樣拋出，且不會被快取
+    public ProductDto getProduct(String id, Function<String, ProductDto> loader) {
+        return productCache.get(id, key -> redisTier.getProduct(key).orElseGet(() -> {
+            ProductDto product = loader.apply(key);
+            redisTier.putProduct(key, product);
+            return product;
+        }));
+    }
+
+    /**
+     * 一次取得多筆產品：本地未命中的 id 合併成一次 Redis MGET，仍未命中的再交給 loader 一次查詢資料庫。
+     * @param loader 依 id 集合批次載入，找不到的 id 不放入返回的 Map
+     * @return id → 產品，不存在的 id 不包含在內 (也不會被快取)
+     */
+    public Map<String, ProductDto> getProducts(Collection<String> ids, Function<Set<String>, Map<String, ProductDto>> loader) {
+        return productCache.getAll(ids, missingIds -> {
+            Set<String> remainingIds = new HashSet<>(missingIds);
+            Map<String, ProductDto> loaded = new HashMap<>(redisTier.getProducts(remainingIds));
+            remainingIds.removeAll(loaded.keySet());
+            if (!remainingIds.isEmpty()) {
+                Map<String, ProductDto> fromDatabase = loader.apply(remainingIds);
+                redisTier.putProducts(fromDatabase);
+                loaded.putAll(fromDatabase);
+            }
+            return loaded;
+        });
+    }
+
+    private List<ProductSummaryDto> loadList(String key, Supplier<List<ProductSummaryDto>> loader) {
+        return redisTier.getList(key).map(List::copyOf).orElseGet(() -> {
+            List<ProductSummaryDto> products = List.copyOf(loader.get());
+            redisTier.putList(key, products);
+            return products;
+        });
+    }
+
+    public void invalidateProduct(String id) {
+        productCache.invalidate(id);
+        // 任何一筆產品變動都可能影響列表內容與排序，列表整批失效
+        listCache.invalidateAll();
+    }
+
+    public void invalidateAll() {
+        productCache.invalidateAll();
+        listCache.invalidateAll();
+    }
+
+    // 在交易提交後才失效，避免其他請求在提交前把舊資料重新載入快取
+    // 順序：清除 Redis → 失效本地 → 遞增目錄版本號 → 廣播，確保新版本號不會搭配到舊資料
+    // 其他節點轉發來的事件只需失效本地，並讀取寫入節點已遞增的版本號
+    // 在搜尋、篩選索引與價格表更新之後才執行 (CATALOG_VERSION_ORDER)，版本號改變時所有衍生資料都已是新的
+    // 只有庫存變動時 (每次加入購物車、結帳都會發生) 列表、搜尋與篩選結果 (不含 stock) 都不受影響：
+    // 只失效該產品的單筆快取與回應，不遞增目錄版本號，列表的 ETag 維持不變 (單筆產品的 ETag 依內容產生)
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(ProductChangedEvent.CATALOG_VERSION_ORDER)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.getChangeType() == ProductChangedEvent.ChangeType.STOCK_CHANGED) {
+            if (event.isRemote()) {
+                invalidateStock(event.getProductId());
+                return;
+            }
+            redisTier.evict(event.getProductId(), List.of());
+            invalidateStock(event.getProductId());
+            redisTier.broadcast(event.getProductId(), event.getChangeType());
+            return;
+        }
+        if (event.isRemote()) {
+            invalidateProduct(event.getProductId());
+            catalogVersion.onRemoteChange();
+            return;
+        }
+        redisTier.evict(event.getProductId(), allListKeys());
+        invalidateProduct(event.getProductId());
+        catalogVersion.onLocalChange();
+        redisTier.broadcast(event.getProductId(), event.getChangeType());
+    }
+
+    private void invalidateStock(String id) {
+        productCache.invalidate(id);
+        productResponseCache.invalidate(ProductResponseCache.productKey(id));
+    }
+
+    private static String categoryKey(ProductCategory category) {
+        return CATEGORY_KEY_PREFIX + category.name();
+    }
+
+    private static List<String> allListKeys() {
+        List<String> keys = new ArrayList<>();
+        keys.add(ALL_PRODUCTS_KEY);
+        for (ProductCategory category : ProductCategory.values()) {
+            keys.add(categoryKey(category));
+        }
+        return keys;
+    }
+
+    public List<CacheStatsDto> getStats() {
+        return List.of(
+                toStatsDto("product-list", listCache),
+                toStatsDto("product-by-id", productCache)
+        );
+    }
+
+    private CacheStatsDto toStatsDto(String name, Cache<?, ?> cache) {
+        CacheStats stats = cache.stats();
+        return new CacheStatsDto(name, cache.estimatedSize(), stats.hitCount(), stats.missCount(),
+                stats.evictionCount(), stats.hitRate());
+    }
+}
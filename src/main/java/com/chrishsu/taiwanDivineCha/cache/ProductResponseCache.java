@@ -0,0 +1,130 @@
+package com.chrishsu.taiwanDivineCha.cache;
+
+import com.chrishsu.taiwanDivineCha.dto.CacheStatsDto;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 熱門產品回應的 JSON 位元組快取。
+ * 存放已序列化的 UTF-8 JSON (以及夠大時的 gzip 版本)，命中時 Controller 直接寫出位元組，不需再經過 Jackson。
+ * 每筆項目記錄產生時的目錄版本號，版本號改變後第一次讀取才重新序列化。
+ * 單筆產品的回應包含庫存，庫存變動不會遞增目錄版本號，改由 ProductCatalogCache 直接失效該產品的項目，
+ * 並以內容摘要作為單筆產品的 ETag。
+ * 另外與產品目錄快取相同設有存活時間，就算漏掉某次版本號更新，過期的回應也不會無限期保留。
+ */
+@Component
+public class ProductResponseCache {
+
+    private final Cache<String, Entry> cache;
+    private final CatalogVersion catalogVersion;
+    private final ObjectMapper objectMapper;
+
+    // 小於此大小的回應不值得壓縮
+    @Value("${app.cache.product.response.gzip-min-bytes:1024}")
+    private int gzipMinBytes;
+
+    public ProductResponseCache(CatalogVersion catalogVersion, ObjectMapper objectMapper,
+                                @Value("${app.cache.product.max-size:1000}") long maxSize,
+                                @Value("${app.cache.product.ttl-seconds:600}") long ttlSeconds) {
+        this.catalogVersion = catalogVersion;
+        this.objectMapper = objectMapper;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * 取得回應的 JSON 位元組；快取中沒有或版本號已過期時呼叫 loader 並重新序列化。
+     * 版本號在 loader 之前讀取：若期間有產品寫入，這筆項目帶的是舊版本號，下一次讀取就會重新產生。
+     * @param key 回應的識別，例如 "product:sanxia-biluochun"
+     * @param loader 產生回應物件，拋出的 RuntimeException (例如 ResourceNotFoundException) 會原樣拋出且不會被快取
+     */
+    public Entry get(String key, Supplier<?> loader) {
+        String version = catalogVersion.current().getETag();
+        Entry entry = cache.getIfPresent(key);
+        if (entry != null && entry.version.equals(version)) {
+            return entry;
+        }
+        entry = serialize(version, loader.get());
+        cache.put(key, entry);
+        return entry;
+    }
+
+    // 庫存變動時由 ProductCatalogCache 呼叫，只失效該產品的回應
+    public void invalidate(String key) {
+        cache.invalidate(key);
+    }
+
+    public static String productKey(String id) {
+        return "product:" + id;
+    }
+
+    private Entry serialize(String version, Object body) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(body);
+            return new Entry(version, json, json.length >= gzipMinBytes ? gzip(json) : null);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Error serializing product response", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream(data.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(output)) {
+            gzip.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return output.toByteArray();
+    }
+
+    public CacheStatsDto getStats() {
+        CacheStats stats = cache.stats();
+        return new CacheStatsDto("product-response", cache.estimatedSize(), stats.hitCount(), stats.missCount(),
+                stats.evictionCount(), stats.hitRate());
+    }
+
+    public static class Entry {
+
+        private final String version;
+        private final byte[] json;
+        private final byte[] gzip;
+        private final String eTag;
+
+        private Entry(String version, byte[] json, byte[] gzip) {
+            this.version = version;
+            this.json = json;
+            this.gzip = gzip;
+            this.eTag = "W/\"" + DigestUtils.md5DigestAsHex(json) + "\"";
+        }
+
+        public byte[] getJson() {
+            return json;
+        }
+
+        // 回應太小時沒有 gzip 版本，返回 null
+        public byte[] getGzip() {
+            return gzip;
+        }
+
+        // 依 JSON 內容產生的弱 ETag (gzip 與未壓縮的回應共用)，內容 (包含庫存) 相同時各節點產生的值也相同
+        public String getETag() {
+            return eTag;
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.chrishsu.taiwanDivineCha.cache;
+
+import com.chrishsu.taiwanDivineCha.dto.ProductDto;
+import com.chrishsu.taiwanDivineCha.dto.ProductSummaryDto;
+import com.chrishsu.taiwanDivineCha.event.ProductChangedEvent;
+import com.chrishsu.taiwanDivineCha.event.ProductChangedEvent.ChangeType;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisStringCommands.SetOption;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+
+/**
+ * 產品目錄快取的 Redis 第二層，以及跨節點的失效通知頻道。
+ * 本地快取未命中時先查 Redis，再查資料庫；任一節點寫入產品後刪除 Redis 中的項目並廣播失效訊息，
+ * 其他節點收到後以 remote 的 ProductChangedEvent 重新發布，讓本地快取等監聽者一起失效。
+ * Redis 無法連線時暫停使用一段時間，期間只使用本地快取。
+ */
+@Component
+public class RedisProductCacheTier implements MessageListener {
+
+    public static final String INVALIDATION_CHANNEL = "product-cache:invalidate";
+
+    private static final String KEY_PREFIX = "product-cache:";
+    private static final String PRODUCT_KEY_PREFIX = KEY_PREFIX + "product:";
+    private static final String LIST_KEY_PREFIX = KEY_PREFIX + "list:";
+    private static final String CATALOG_VERSION_KEY = "product-catalog:version";
+    private static final String CATALOG_LAST_MODIFIED_KEY = "product-catalog:last-modified";
+    private static final TypeReference<List<ProductSummaryDto>> PRODUCT_LIST_TYPE = new TypeReference<>() {};
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // 每個節點啟動時產生的識別碼，用來忽略自己發出的失效訊息
+    private final String nodeId = UUID.randomUUID().toString();
+
+    @Value("${app.cache.product.redis.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.cache.product.ttl-seconds:600}")
+    private long ttlSeconds;
+
+    // Redis 連線失敗後暫停使用的時間，避免每個請求都等待連線逾時
+    @Value("${app.cache.product.redis.retry-after-seconds:30}")
+    private long retryAfterSeconds;
+
+    private volatile long unavailableUntil = 0L;
+
+    public RedisProductCacheTier(StringRedisTemplate redisTemplate, ObjectMapper objectMapper,
+                                 ApplicationEventPublisher eventPublisher) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+    }
+
+    public Optional<List<ProductSummaryDto>> getList(String listKey) {
+        return read(LIST_KEY_PREFIX + listKey, json -> objectMapper.readValue(json, PRODUCT_LIST_TYPE));
+    }
+
+    public void putList(String listKey, List<ProductSummaryDto> products) {
+        write(LIST_KEY_PREFIX + listKey, products);
+    }
+
+    public Optional<ProductDto> getProduct(String id) {
+        return read(PRODUCT_KEY_PREFIX + id, json -> objectMapper.readValue(json, ProductDto.class));
+    }
+
+    public void putProduct(String id, ProductDto product) {
+        write(PRODUCT_KEY_PREFIX + id, product);
+    }
+
+    // 一次 MGET 讀取多筆產品，只返回 Redis 中存在的項目
+    public Map<String, ProductDto> getProducts(Collection<String> ids) {
+        Map<String, ProductDto> products = execute(() -> {
+            List<String> idList = new ArrayList<>(ids);
+            List<String> keys = new ArrayList<>(idList.size());
+            idList.forEach(id -> keys.add(PRODUCT_KEY_PREFIX + id));
+            List<String> values = redisTemplate.opsForValue().multiGet(keys);
+            Map<String, ProductDto> found = new HashMap<>();
+            for (int i = 0; values != null && i < values.size(); i++) {
+                if (values.get(i) != null) {
+                    found.put(idList.get(i), objectMapper.readValue(values.get(i), ProductDto.class));
+                }
+            }
+            return found;
+        });
+        return products != null ? products : Map.of();
+    }
+
+    // 以 pipeline 一次寫入多筆產品 (各自帶 TTL)
+    public void putProducts(Map<String, ProductDto> products) {
+        if (products.isEmpty()) {
+            return;
+        }
+        execute(() -> {
+            Map<byte[], byte[]> entries = new HashMap<>();
+            for (Map.Entry<String, ProductDto> entry : products.entrySet()) {
+                entries.put((PRODUCT_KEY_PREFIX + entry.getKey()).getBytes(StandardCharsets.UTF_8),
+                        objectMapper.writeValueAsBytes(entry.getValue()));
+            }
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                entries.forEach((key, value) ->
+                        connection.stringCommands().set(key, value, Expiration.seconds(ttlSeconds), SetOption.upsert()));
+                return null;
+            });
+            return null;
+        });
+    }
+
+    // 刪除 Redis 中受影響的項目
+    public void evict(String productId, Collection<String> listKeys) {
+        execute(() -> {
+            List<String> keys = new ArrayList<>();
+            listKeys.forEach(listKey -> keys.add(LIST_KEY_PREFIX + listKey));
+            keys.add(PRODUCT_KEY_PREFIX + productId);
+            redisTemplate.delete(keys);
+            return null;
+        });
+    }
+
+    // 通知其他節點失效 (需在 evict 與遞增版本號之後呼叫，否則其他節點可能讀回舊資料或舊版本號)
+    public void broadcast(String productId, ChangeType changeType) {
+        execute(() -> {
+            redisTemplate.convertAndSend(INVALIDATION_CHANNEL, nodeId + ":" + changeType.name() + ":" + productId);
+            return null;
+        });
+    }
+
+    /**
+     * 遞增跨節點共用的目錄版本號，並記錄最後修改時間。
+     * @return 新的版本號；Redis 無法使用時返回 empty，由呼叫端改用本地版本號
+     */
+    public Optional<Long> incrementCatalogVersion(long lastModifiedMillis) {
+        return Optional.ofNullable(execute(() -> {
+            Long version = redisTemplate.opsForValue().increment(CATALOG_VERSION_KEY);
+            redisTemplate.opsForValue().set(CATALOG_LAST_MODIFIED_KEY, String.valueOf(lastModifiedMillis));
+            return version;
+        }));
+    }
+
+    /**
+     * 讀取跨節點共用的目錄版本號與最後修改時間，尚未初始化時以 initialLastModifiedMillis 初始化。
+     * @return [版本號, 最後修改時間 (毫秒)]；Redis 無法使用時返回 empty
+     */
+    public Optional<long[]> readCatalogVersion(long initialLastModifiedMillis) {
+        return Optional.ofNullable(execute(() -> {
+            redisTemplate.opsForValue().setIfAbsent(CATALOG_VERSION_KEY, "0");
+            redisTemplate.opsForValue().setIfAbsent(CATALOG_LAST_MODIFIED_KEY, String.valueOf(initialLastModifiedMillis));
+            List<String> values = redisTemplate.opsForValue().multiGet(List.of(CATALOG_VERSION_KEY, CATALOG_LAST_MODIFIED_KEY));
+            return new long[]{Long.parseLong(values.get(0)), Long.parseLong(values.get(1))};
+        }));
+    }
+
+    // 收到其他節點的失效訊息 (格式：nodeId:changeType:productId)
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        String[] parts = body.split(":", 3);
+        if (parts.length != 3 || nodeId.equals(parts[0])) {
+            return;
+        }
+        try {
+            eventPublisher.publishEvent(new ProductChangedEvent(parts[2], ChangeType.valueOf(parts[1]), true));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Ignoring malformed product cache invalidation message: " + body);
+        }
+    }
+
+    public boolean isAvailable() {
+        return enabled && System.currentTimeMillis() >= unavailableUntil;
+    }
+
+    private <T> Optional<T> read(String key, JsonReader<T> reader) {
+        return Optional.ofNullable(execute(() -> {
+            String json = redisTemplate.opsForValue().get(key);
+            return json == null ? null : reader.read(json);
+        }));
+    }
+
+    private void write(String key, Object value) {
+        execute(() -> {
+            redisTemplate.opsForValue().set(key, objectMapper.writeValueAsString(value), Duration.ofSeconds(ttlSeconds));
+            return null;
+        });
+    }
+
+    private <T> T execute(Callable<T> action) {
+        if (!isAvailable()) {
+            return null;
+        }
+        try {
+            return action.call();
+        } catch (JsonProcessingException e) {
+            System.err.println("Error converting product cache entry: " + e.getMessage());
+            return null;
+        } catch (Exception e) {
+            // Redis 無法連線：退回只使用本地快取，一段時間後再重試
+            unavailableUntil = System.currentTimeMillis() + Duration.ofSeconds(retryAfterSeconds).toMillis();
+            System.err.println("Redis product cache unavailable, falling back to local cache: " + e.getMessage());
+            return null;
+        }
+    }
+
+    @FunctionalInterface
+    private interface JsonReader<T> {
+        T read(String json) throws JsonProcessingException;
+    }
+}
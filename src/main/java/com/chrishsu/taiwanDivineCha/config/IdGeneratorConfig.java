@@ -0,0 +1,55 @@
+package com.chrishsu.taiwanDivineCha.config;
+
+import com.chrishsu.taiwanDivineCha.id.SnowflakeIdGenerator;
+import com.chrishsu.taiwanDivineCha.id.SnowflakeIdentifierGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Hibernate 主鍵產生器不是 Spring bean，節點編號等設定經由 Hibernate 設定傳入
+@Configuration
+public class IdGeneratorConfig {
+
+    private final long nodeId;
+    private final long maxClockBackwardMs;
+
+    public IdGeneratorConfig(@Value("${app.id.node-id:-1}") long nodeId,
+                             @Value("${app.id.single-node:false}") boolean singleNode,
+                             @Value("${app.id.max-clock-backward-ms:5000}") long maxClockBackwardMs) {
+        this.nodeId = resolveNodeId(nodeId, singleNode);
+        this.maxClockBackwardMs = maxClockBackwardMs;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer snowflakeIdPropertiesCustomizer() {
+        return properties -> {
+            properties.put(SnowflakeIdentifierGenerator.NODE_ID_SETTING, nodeId);
+            properties.put(SnowflakeIdentifierGenerator.MAX_CLOCK_BACKWARD_MS_SETTING, maxClockBackwardMs);
+        };
+    }
+
+    // 訂單編號等不是主鍵的唯一編號；使用相同的節點編號，各節點產生的編號不會重複
+    // (與主鍵產生器是不同的實例，兩者的值可能相同，但不會用在同一個欄位)
+    @Bean
+    public SnowflakeIdGenerator snowflakeIdGenerator() {
+        return new SnowflakeIdGenerator(nodeId, maxClockBackwardMs);
+    }
+
+    // 未設定節點編號時只允許單一節點部署 (固定使用 0)；多個節點共用推算出的編號會產生重複 id，因此直接啟動失敗
+    static long resolveNodeId(long nodeId, boolean singleNode) {
+        if (nodeId >= 0) {
+            if (nodeId > SnowflakeIdGenerator.MAX_NODE_ID) {
+                throw new IllegalStateException("app.id.node-id must be between 0 and "
+                        + SnowflakeIdGenerator.MAX_NODE_ID + ": " + nodeId);
+            }
+            return nodeId;
+        }
+        if (!singleNode) {
+            throw new IllegalStateException("app.id.node-id is not configured. Set a distinct node id (0-"
+                    + SnowflakeIdGenerator.MAX_NODE_ID + ") for each instance, or use the local profile "
+                    + "(app.id.single-node=true) for a single development instance.");
+        }
+        return 0;
+    }
+}
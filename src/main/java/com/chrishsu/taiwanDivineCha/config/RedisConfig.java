@@ -0,0 +1,25 @@
+package com.chrishsu.taiwanDivineCha.config;
+
+import com.chrishsu.taiwanDivineCha.cache.RedisProductCacheTier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+@Configuration
+public class RedisConfig {
+
+    // 訂閱產品快取失效頻道；Redis 暫時無法連線時容器會自行重試訂閱
+    // 停用 Redis 第二層快取 (例如單機或測試環境) 時不需要訂閱，也不在啟動時連線 Redis
+    @Bean
+    @ConditionalOnProperty(name = "app.cache.product.redis.enabled", havingValue = "true", matchIfMissing = true)
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                       RedisProductCacheTier redisProductCacheTier) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(redisProductCacheTier, new ChannelTopic(RedisProductCacheTier.INVALIDATION_CHANNEL));
+        return container;
+    }
+}
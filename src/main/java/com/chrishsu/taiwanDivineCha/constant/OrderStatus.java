@@ -0,0 +1,10 @@
+package com.chrishsu.taiwanDivineCha.constant;
+
+// 訂單狀態 (以字串存入 orders.status)
+public enum OrderStatus {
+    PENDING_PAYMENT, // 已成立，等待付款
+    PAID,            // 已付款
+    SHIPPED,         // 已出貨
+    COMPLETED,       // 已完成
+    CANCELLED        // 已取消
+}
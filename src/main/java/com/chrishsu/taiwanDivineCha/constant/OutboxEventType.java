@@ -0,0 +1,8 @@
+package com.chrishsu.taiwanDivineCha.constant;
+
+// 寫入 outbox_event 的領域事件類型 (以字串存入 outbox_event.event_type)
+public enum OutboxEventType {
+    USER_REGISTERED,          // 新用戶註冊，寄送 Email 驗證信
+    PASSWORD_RESET_REQUESTED, // 忘記密碼，寄送重設密碼信
+    ORDER_PLACED              // 訂單成立，寄送訂單確認信
+}
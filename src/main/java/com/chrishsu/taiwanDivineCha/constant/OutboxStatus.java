@@ -0,0 +1,8 @@
+package com.chrishsu.taiwanDivineCha.constant;
+
+// outbox 事件的派送狀態 (以字串存入 outbox_event.status)
+public enum OutboxStatus {
+    PENDING, // 等待派送 (含派送失敗等待重試)
+    SENT,    // 已派送
+    FAILED   // 超過重試次數，不再派送
+}
@@ -0,0 +1,28 @@
+package com.chrishsu.taiwanDivineCha.constant;
+
+// 產品分頁可用的排序欄位 (keyset 分頁的游標欄位)
+public enum ProductSortField {
+    ID("id"),
+    PRICE("price"),
+    LAST_MODIFIED_DATE("lastModifiedDate");
+
+    private final String paramName;
+
+    ProductSortField(String paramName) {
+        this.paramName = paramName;
+    }
+
+    public String getParamName() {
+        return paramName;
+    }
+
+    // 根據查詢參數名稱 (例如 "price") 獲取 Enum 實例
+    public static ProductSortField fromParamName(String paramName) {
+        for (ProductSortField field : ProductSortField.values()) {
+            if (field.getParamName().equalsIgnoreCase(paramName)) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("No sort field with name " + paramName);
+    }
+}
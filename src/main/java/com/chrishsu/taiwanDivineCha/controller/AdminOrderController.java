@@ -0,0 +1,31 @@
+package com.chrishsu.taiwanDivineCha.controller;
+
+import com.chrishsu.taiwanDivineCha.dto.OrderSearchQuery;
+import com.chrishsu.taiwanDivineCha.dto.OrderSummaryDto;
+import com.chrishsu.taiwanDivineCha.security.AuthenticatedUser;
+import com.chrishsu.taiwanDivineCha.service.OrderService;
+import com.chrishsu.taiwanDivineCha.util.Page;
+import jakarta.validation.Valid;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+// 後台 (客服) 用的訂單查詢，只有 app.admin.emails 中的帳號可以使用
+@RestController
+@RequestMapping("/api/admin/orders")
+public class AdminOrderController {
+
+    private final OrderService orderService;
+
+    public AdminOrderController(OrderService orderService) {
+        this.orderService = orderService;
+    }
+
+    // 跨用戶搜尋訂單，例如 GET /api/admin/orders?from=2025-10-01&to=2025-10-31&status=PAID&limit=50
+    @GetMapping
+    public ResponseEntity<Page<OrderSummaryDto>> searchOrders(@AuthenticationPrincipal AuthenticatedUser principal, @Valid OrderSearchQuery query) {
+        return ResponseEntity.ok(orderService.searchOrders(principal, query));
+    }
+}
@@ -9,8 +9,10 @@ import com.chrishsu.taiwanDivineCha.exception.UserAlreadyExistsException; // 自
 import com.chrishsu.taiwanDivineCha.exception.BadCredentialsException; // 自定義異常
 
 import com.chrishsu.taiwanDivineCha.model.User;
+import com.chrishsu.taiwanDivineCha.security.AuthenticatedUser;
 import com.chrishsu.taiwanDivineCha.security.JwtUtil;
 import com.chrishsu.taiwanDivineCha.service.AuthService;
+import com.chrishsu.taiwanDivineCha.service.CartService;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -22,7 +24,6 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.*;
@@ -39,12 +40,15 @@ public class AuthController {
   private final AuthenticationManager authenticationManager;
   private final UserDetailsService userDetailsService;
   private final JwtUtil jwtUtil;
+  private final CartService cartService;
 
-  public AuthController(AuthService authService, AuthenticationManager authenticationManager, UserDetailsService userDetailsService, JwtUtil jwtUtil) {
+  public AuthController(AuthService authService, AuthenticationManager authenticationManager, UserDetailsService userDetailsService, JwtUtil jwtUtil,
+                        CartService cartService) {
     this.authService = authService;
     this.authenticationManager = authenticationManager;
     this.userDetailsService = userDetailsService;
     this.jwtUtil = jwtUtil;
+    this.cartService = cartService;
   }
 
   /**
@@ -110,8 +114,9 @@ public class AuthController {
               )
       );
 
-      final UserDetails userDetails = userDetailsService.loadUserByUsername(loginRequest.getEmail());
-      final String jwt = jwtUtil.generateToken(userDetails);
+      final User user = (User) userDetailsService.loadUserByUsername(loginRequest.getEmail());
+      // userId 與 cartId 簽進 token，之後的購物車請求不需要再查詢使用者與購物車 (首次登入時建立購物車)
+      final String jwt = jwtUtil.generateToken(user, cartService.getOrCreateCart(user).getCartId());
 
       return ResponseEntity.ok(new AuthenticationResponse(jwt));
       // --- End of JWT Authentication Logic ---
@@ -276,28 +281,28 @@ public class AuthController {
   /**
    * 獲取當前登入用戶的個人資料。
    * GET /api/auth/profile
-   * @param user 當前認證用戶的 User 物件 (由 Spring Security 提供)
+   * @param principal 當前認證用戶 (由 Spring Security 提供)
    * @return 用戶個人資料 DTO
    */
   @GetMapping("/profile")
-  public ResponseEntity<UserProfileDto> getUserProfile(@AuthenticationPrincipal User user) {
+  public ResponseEntity<UserProfileDto> getUserProfile(@AuthenticationPrincipal AuthenticatedUser principal) {
     // 使用用戶的 email 從 AuthService 獲取個人資料
-    UserProfileDto userProfile = authService.getUserProfile(user.getEmail());
+    UserProfileDto userProfile = authService.getUserProfile(principal.getEmail());
     return ResponseEntity.ok(userProfile);
   }
 
   /**
    * 更新當前登入用戶的個人資料。
    * PUT /api/auth/profile
-   * @param user 當前認證用戶的 User 物件
+   * @param principal 當前認證用戶
    * @param userProfileDto 包含要更新的個人資料的 DTO
    * @return 更新後的用戶個人資料 DTO
    */
   @PutMapping("/profile")
-  public ResponseEntity<UserProfileDto> updateUserProfile(@AuthenticationPrincipal User user,
+  public ResponseEntity<UserProfileDto> updateUserProfile(@AuthenticationPrincipal AuthenticatedUser principal,
                                                          @Valid @RequestBody UserProfileDto userProfileDto) {
     // 使用用戶的 email 和傳入的 DTO 更新個人資料
-    UserProfileDto updatedProfile = authService.updateUserProfile(user.getEmail(), userProfileDto);
+    UserProfileDto updatedProfile = authService.updateUserProfile(principal.getEmail(), userProfileDto);
     return ResponseEntity.ok(updatedProfile);
   }
 
@@ -0,0 +1,33 @@
+package com.chrishsu.taiwanDivineCha.controller;
+
+import com.chrishsu.taiwanDivineCha.cache.ProductCatalogCache;
+import com.chrishsu.taiwanDivineCha.cache.ProductResponseCache;
+import com.chrishsu.taiwanDivineCha.dto.CacheStatsDto;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/cache") // 快取監控 API (需登入)
+public class CacheStatsController {
+
+    private final ProductCatalogCache productCatalogCache;
+    private final ProductResponseCache productResponseCache;
+
+    public CacheStatsController(ProductCatalogCache productCatalogCache, ProductResponseCache productResponseCache) {
+        this.productCatalogCache = productCatalogCache;
+        this.productResponseCache = productResponseCache;
+    }
+
+    // 獲取各快取的命中 / 未命中 / 淘汰次數
+    @GetMapping("/stats")
+    public ResponseEntity<List<CacheStatsDto>> getCacheStats() {
+        List<CacheStatsDto> stats = new ArrayList<>(productCatalogCache.getStats());
+        stats.add(productResponseCache.getStats());
+        return ResponseEntity.ok(stats);
+    }
+}
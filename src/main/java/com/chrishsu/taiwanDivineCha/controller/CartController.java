@@ -1,9 +1,11 @@
 package com.chrishsu.taiwanDivineCha.controller;
 
 import com.chrishsu.taiwanDivineCha.dto.AddToCartRequest;
+import com.chrishsu.taiwanDivineCha.dto.CartBatchRequest;
 import com.chrishsu.taiwanDivineCha.dto.CartDto;
+import com.chrishsu.taiwanDivineCha.dto.CartSummaryDto;
 import com.chrishsu.taiwanDivineCha.dto.UpdateCartItemRequest;
-import com.chrishsu.taiwanDivineCha.model.User;
+import com.chrishsu.taiwanDivineCha.security.AuthenticatedUser;
 import com.chrishsu.taiwanDivineCha.service.CartService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -20,28 +22,41 @@ public class CartController {
     private CartService cartService;
 
     @PostMapping("/items")
-    public ResponseEntity<Void> addItemToCart(@AuthenticationPrincipal User user, @RequestBody @Valid AddToCartRequest addToCartRequest) {
-        cartService.addToCart(user, addToCartRequest);
+    public ResponseEntity<Void> addItemToCart(@AuthenticationPrincipal AuthenticatedUser principal, @RequestBody @Valid AddToCartRequest addToCartRequest) {
+        cartService.addToCart(principal, addToCartRequest);
         return ResponseEntity.status(HttpStatus.CREATED).build();
     }
 
     @PutMapping("/items")
-    public ResponseEntity<Void> updateCartItemQuantity(@AuthenticationPrincipal User user, @RequestBody @Valid UpdateCartItemRequest updateCartItemRequest) {
-        cartService.updateCartItem(user, updateCartItemRequest);
+    public ResponseEntity<Void> updateCartItemQuantity(@AuthenticationPrincipal AuthenticatedUser principal, @RequestBody @Valid UpdateCartItemRequest updateCartItemRequest) {
+        cartService.updateCartItem(principal, updateCartItemRequest);
         return ResponseEntity.ok().build();
     }
 
+    // 一次送出多筆新增 / 修改 / 刪除，全部在同一個交易內套用，並直接返回更新後的購物車
+    @PostMapping("/items/batch")
+    public ResponseEntity<CartDto> applyCartBatch(@AuthenticationPrincipal AuthenticatedUser principal, @RequestBody @Valid CartBatchRequest cartBatchRequest) {
+        CartDto cartDto = cartService.applyBatch(principal, cartBatchRequest);
+        return ResponseEntity.ok(cartDto);
+    }
+
     @DeleteMapping("/items/{productId}")
-    public ResponseEntity<Void> removeCartItem(@AuthenticationPrincipal User user, 
+    public ResponseEntity<Void> removeCartItem(@AuthenticationPrincipal AuthenticatedUser principal, 
                                                @PathVariable String productId, 
                                                @RequestParam Integer weight) {
-        cartService.removeCartItem(user, productId, weight);
+        cartService.removeCartItem(principal, productId, weight);
         return ResponseEntity.noContent().build();
     }
 
     @GetMapping
-    public ResponseEntity<CartDto> getCart(@AuthenticationPrincipal User user) {
-        CartDto cartDto = cartService.getCart(user);
+    public ResponseEntity<CartDto> getCart(@AuthenticationPrincipal AuthenticatedUser principal) {
+        CartDto cartDto = cartService.getCart(principal);
         return ResponseEntity.ok(cartDto);
     }
+
+    // 頁首徽章等只需要件數與總金額時使用，不載入購物車項目
+    @GetMapping("/summary")
+    public ResponseEntity<CartSummaryDto> getCartSummary(@AuthenticationPrincipal AuthenticatedUser principal) {
+        return ResponseEntity.ok(cartService.getCartSummary(principal));
+    }
 }
\ No newline at end of file
@@ -1,8 +1,22 @@
 package com.chrishsu.taiwanDivineCha.controller;
 
 import com.chrishsu.taiwanDivineCha.dto.CreateOrderRequest;
+import com.chrishsu.taiwanDivineCha.dto.MessageResponse;
+import com.chrishsu.taiwanDivineCha.dto.OrderPageQuery;
+import com.chrishsu.taiwanDivineCha.dto.OrderSubmissionDto;
+import com.chrishsu.taiwanDivineCha.dto.OrderSummaryDto;
+import com.chrishsu.taiwanDivineCha.exception.OrderQueueFullException;
+import com.chrishsu.taiwanDivineCha.security.AuthenticatedUser;
+import com.chrishsu.taiwanDivineCha.service.OrderService;
+import com.chrishsu.taiwanDivineCha.util.Page;
+import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -12,10 +26,38 @@ import org.springframework.web.bind.annotation.RestController;
 @RequestMapping("/api/orders")
 public class OrderController {
 
+    private final OrderService orderService;
+
+    public OrderController(OrderService orderService) {
+        this.orderService = orderService;
+    }
+
+    // 受理下單後立即返回 202 與訂單編號，訂單在背景建立；請求中的付款資料不會被記錄或保存
     @PostMapping
-    public ResponseEntity<String> createOrder(@RequestBody CreateOrderRequest createOrderRequest) {
-        System.out.println("Received order request: " + createOrderRequest);
-        // 在這裡處理訂單創建邏輯，例如保存到資料庫
-        return ResponseEntity.status(HttpStatus.CREATED).body("Order created successfully!");
+    public ResponseEntity<OrderSubmissionDto> createOrder(@AuthenticationPrincipal AuthenticatedUser principal, @RequestBody CreateOrderRequest createOrderRequest) {
+        OrderSubmissionDto submission = orderService.submitOrder(principal, createOrderRequest);
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .header(HttpHeaders.LOCATION, "/api/orders/" + submission.getOrderNumber())
+                .body(submission);
+    }
+
+    // 目前用戶的訂單歷史 (依下單時間由新到舊)，例如 GET /api/orders?limit=20，下一頁再帶上回傳的 nextCursor
+    @GetMapping
+    public ResponseEntity<Page<OrderSummaryDto>> getOrderHistory(@AuthenticationPrincipal AuthenticatedUser principal, @Valid OrderPageQuery query) {
+        return ResponseEntity.ok(orderService.getOrderHistory(principal, query));
+    }
+
+    // 查詢下單的處理進度 (PROCESSING / CREATED / FAILED)
+    @GetMapping("/{orderNumber}")
+    public ResponseEntity<OrderSubmissionDto> getOrder(@AuthenticationPrincipal AuthenticatedUser principal, @PathVariable String orderNumber) {
+        return ResponseEntity.ok(orderService.getSubmission(principal, orderNumber));
+    }
+
+    // 佇列已滿：明確回覆 503 與建議的重試秒數，而不是讓請求逾時
+    @ExceptionHandler(OrderQueueFullException.class)
+    public ResponseEntity<MessageResponse> handleOrderQueueFull(OrderQueueFullException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(new MessageResponse(e.getMessage()));
     }
 }
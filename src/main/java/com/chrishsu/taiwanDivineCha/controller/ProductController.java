@@ -1,43 +1,132 @@
 package com.chrishsu.taiwanDivineCha.controller;
 
+import com.chrishsu.taiwanDivineCha.cache.CatalogVersion;
+import com.chrishsu.taiwanDivineCha.cache.ProductResponseCache;
+import com.chrishsu.taiwanDivineCha.constant.ProductCategory;
+import com.chrishsu.taiwanDivineCha.dto.ProductBatchResult;
 import com.chrishsu.taiwanDivineCha.dto.ProductDto;
+import com.chrishsu.taiwanDivineCha.dto.ProductFacetQuery;
+import com.chrishsu.taiwanDivineCha.dto.ProductFacetResult;
+import com.chrishsu.taiwanDivineCha.dto.ProductPageQuery;
+import com.chrishsu.taiwanDivineCha.dto.ProductSummaryDto;
 import com.chrishsu.taiwanDivineCha.service.ProductService;
+import com.chrishsu.taiwanDivineCha.util.Page;
 import jakarta.validation.Valid;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Locale;
 
 @RestController
 @RequestMapping("/api/products") // 產品相關 API
 @CrossOrigin(origins = "http://localhost:4200", methods = {RequestMethod.GET, RequestMethod.POST, RequestMethod.PUT, RequestMethod.DELETE, RequestMethod.OPTIONS}, allowedHeaders = "*", allowCredentials = "true")
 public class ProductController {
 
+    private static final int MAX_SEARCH_LIMIT = 100;
+    private static final byte[] EMPTY_JSON_ARRAY = "[]".getBytes(StandardCharsets.UTF_8);
+
     private final ProductService productService;
+    private final CatalogVersion catalogVersion;
+    private final ProductResponseCache productResponseCache;
 
     // Spring 會自動查找 ProductService 介面的唯一實作類（ProductServiceImpl）並注入
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService, CatalogVersion catalogVersion,
+                             ProductResponseCache productResponseCache) {
         this.productService = productService;
+        this.catalogVersion = catalogVersion;
+        this.productResponseCache = productResponseCache;
     }
 
-    // 獲取所有產品
+    // 獲取所有產品 (列表只回傳摘要欄位，完整資料請使用 GET /api/products/{id})
+    // 回應為預先序列化的 JSON 位元組 (List<ProductSummaryDto>)
     @GetMapping
-    public ResponseEntity<List<ProductDto>> getAllProducts(@RequestParam(required = false) String category) {
-        List<ProductDto> products;
+    public ResponseEntity<byte[]> getAllProducts(@RequestParam(required = false) String category,
+                                                 ServletWebRequest webRequest) {
+        if (checkNotModified(webRequest)) {
+            return null; // 304 Not Modified
+        }
+        ProductResponseCache.Entry response;
         if (category != null && !category.trim().isEmpty()) {
-            products = productService.getProductsByCategory(category);
+            ProductCategory resolved;
+            try {
+                resolved = ProductCategory.fromDisplayName(category.trim());
+            } catch (IllegalArgumentException e) {
+                // 分類名稱無效時與 getProductsByCategory 一致返回空列表，且不放入快取 (避免任意輸入佔滿快取)
+                return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(EMPTY_JSON_ARRAY);
+            }
+            // 以分類 enum 作為 key，大小寫或前後空白不同的寫法共用同一筆快取
+            response = productResponseCache.get("category:" + resolved.name(),
+                    () -> productService.getProductsByCategory(resolved.getDisplayName()));
         } else {
-            products = productService.getAllProducts();
+            response = productResponseCache.get("all", productService::getAllProducts);
+        }
+        return toJsonResponse(response, webRequest);
+    }
+
+    // 分頁獲取產品 (帶有 limit 參數時使用 keyset 分頁)
+    // 例如 GET /api/products?limit=20&sort=price&direction=desc，下一頁再帶上回傳的 nextCursor
+    @GetMapping(params = "limit")
+    public ResponseEntity<Page<ProductSummaryDto>> getProductPage(@Valid ProductPageQuery query, ServletWebRequest webRequest) {
+        if (checkNotModified(webRequest)) {
+            return null; // 304 Not Modified
+        }
+        return ResponseEntity.ok(productService.getProductPage(query));
+    }
+
+    // 一次取得多筆產品 (購物車、最近瀏覽等)，依請求順序返回，找不到的 id 列在 missingIds
+    // 例如 GET /api/products?ids=sanxia-biluochun,alishan-oolong
+    // 同時帶 limit 時交給 keyset 分頁處理，避免兩個 mapping 同時符合造成 ambiguous handler
+    @GetMapping(params = {"ids", "!limit"})
+    // 結果包含庫存，庫存變動不會遞增目錄版本號，因此 ETag 另外帶上這些產品庫存的摘要；產品本身多半已在快取中
+    public ResponseEntity<ProductBatchResult> getProductsByIds(@RequestParam List<String> ids, ServletWebRequest webRequest) {
+        ProductBatchResult result = productService.getProductsByIds(ids);
+        if (checkNotModified(webRequest, catalogVersion.current().getETag(stockDigest(result.getProducts())))) {
+            return null; // 304 Not Modified
         }
-        return ResponseEntity.ok(products);
+        return ResponseEntity.ok(result);
     }
 
-    // 根據 ID 獲取單個產品
+    // 全文檢索產品 (名稱、產地、特點、分類、描述)，依相關性排序
+    // 例如 GET /api/products/search?q=碧螺春
+    @GetMapping("/search")
+    public ResponseEntity<List<ProductSummaryDto>> searchProducts(@RequestParam("q") String keyword,
+                                                                  @RequestParam(defaultValue = "20") int limit,
+                                                                  ServletWebRequest webRequest) {
+        if (checkNotModified(webRequest)) {
+            return null; // 304 Not Modified
+        }
+        int cappedLimit = Math.max(1, Math.min(limit, MAX_SEARCH_LIMIT));
+        return ResponseEntity.ok(productService.searchProducts(keyword, cappedLimit));
+    }
+
+    // 多條件篩選產品，並返回各 facet (分類、產地、重量、價格區間) 的數量
+    // 例如 GET /api/products/facets?category=綠茶&category=青茶&origin=三峽&minPrice=500
+    @GetMapping("/facets")
+    public ResponseEntity<ProductFacetResult> filterProducts(@Valid ProductFacetQuery query, ServletWebRequest webRequest) {
+        if (checkNotModified(webRequest)) {
+            return null; // 304 Not Modified
+        }
+        return ResponseEntity.ok(productService.filterProducts(query));
+    }
+
+    // 根據 ID 獲取單個產品 (回應為預先序列化的 ProductDto JSON 位元組)
+    // 回應包含庫存，以回應內容的摘要作為 ETag (庫存變動時 ProductCatalogCache 只失效這一筆)
     @GetMapping("/{id}")
-    public ResponseEntity<ProductDto> getProductById(@PathVariable String id) { // ID 類型為 String
-        ProductDto productDto = productService.getProductById(id);
-        return ResponseEntity.ok(productDto);
+    public ResponseEntity<byte[]> getProductById(@PathVariable String id, ServletWebRequest webRequest) { // ID 類型為 String
+        ProductResponseCache.Entry response = productResponseCache.get(ProductResponseCache.productKey(id),
+                () -> productService.getProductById(id));
+        if (checkNotModified(webRequest, response.getETag())) {
+            return null; // 304 Not Modified
+        }
+        return toJsonResponse(response, webRequest);
     }
 
     // 創建新產品
@@ -60,4 +149,76 @@ public class ProductController {
         productService.deleteProduct(id);
         return ResponseEntity.noContent().build();
     }
-}
\ No newline at end of file
+
+    // 直接寫出快取的 JSON 位元組；用戶端接受 gzip 且有壓縮版本時寫出 gzip 版本
+    private ResponseEntity<byte[]> toJsonResponse(ProductResponseCache.Entry response, ServletWebRequest webRequest) {
+        boolean gzip = response.getGzip() != null && acceptsGzip(webRequest.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        byte[] body = gzip ? response.getGzip() : response.getJson();
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .contentLength(body.length)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            builder.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return builder.body(body);
+    }
+
+    // 依 q 值判斷用戶端是否接受 gzip：明確列出 gzip 時以它的 q 值為準 (例如 "gzip;q=0" 表示拒絕)，
+    // 否則看 "*" 的 q 值；q 值無法解析時視為 0
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzipQuality = null;
+        Double wildcardQuality = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim().toLowerCase(Locale.ROOT);
+            double quality = 1.0;
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.length() > 1 && (param.charAt(0) == 'q' || param.charAt(0) == 'Q') && param.charAt(1) == '=') {
+                    try {
+                        quality = Double.parseDouble(param.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            if (name.equals("gzip") || name.equals("x-gzip")) {
+                gzipQuality = gzipQuality == null ? quality : Math.max(gzipQuality, quality);
+            } else if (name.equals("*")) {
+                wildcardQuality = quality;
+            }
+        }
+        if (gzipQuality != null) {
+            return gzipQuality > 0;
+        }
+        return wildcardQuality != null && wildcardQuality > 0;
+    }
+
+    // 條件式 GET：以目錄版本號作為 ETag (弱驗證碼，gzip 與未壓縮的回應共用)，產品最後寫入時間作為 Last-Modified。
+    // 版本未變時 checkNotModified 會把回應設為 304，呼叫端直接返回，不查詢資料庫也不序列化 JSON；
+    // 否則 ETag / Last-Modified 已寫入回應標頭，繼續產生 200 回應即可。
+    private boolean checkNotModified(ServletWebRequest webRequest) {
+        CatalogVersion.Snapshot version = catalogVersion.current();
+        // 允許瀏覽器保存，但每次使用前都需重新驗證
+        webRequest.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().getHeaderValue());
+        return webRequest.checkNotModified(version.getETag(), version.getLastModified());
+    }
+
+    // 內容包含庫存的回應：只以 ETag 判斷 (庫存變動不會改變目錄的 Last-Modified)
+    private boolean checkNotModified(ServletWebRequest webRequest, String eTag) {
+        webRequest.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().getHeaderValue());
+        return webRequest.checkNotModified(eTag);
+    }
+
+    private static String stockDigest(List<ProductDto> products) {
+        StringBuilder stocks = new StringBuilder();
+        for (ProductDto product : products) {
+            stocks.append(product.getId()).append('=').append(product.getStock()).append(';');
+        }
+        return DigestUtils.md5DigestAsHex(stocks.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,19 +1,40 @@
 package com.chrishsu.taiwanDivineCha.converter;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import jakarta.persistence.AttributeConverter;
 import jakarta.persistence.Converter;
+import org.hibernate.annotations.Immutable;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
+// 轉換出的 List 為不可變，Hibernate 不需要為了 dirty checking 再深度複製一份
+// (要修改時請整個替換，例如 product.setFeatures(newList))
+@Immutable
 @Converter
 public class StringListConverter implements AttributeConverter<List<String>, String> {
 
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    // ObjectReader / ObjectWriter 建立後即為執行緒安全，所有實例共用，不需每次建立 TypeReference
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final ObjectReader READER = OBJECT_MAPPER.reader();
+    private static final ObjectWriter WRITER = OBJECT_MAPPER.writerFor(new TypeReference<List<String>>() {});
+
+    // 以欄位原始字串為 key 的解析結果快取 (有上限)；多數產品的特點與圖片路徑相同，可共用同一個 List
+    private static final int PARSED_CACHE_MAX_SIZE = 2048;
+    private static final Cache<String, List<String>> PARSED_CACHE = Caffeine.newBuilder()
+            .maximumSize(PARSED_CACHE_MAX_SIZE)
+            .build();
 
     @Override
     public String convertToDatabaseColumn(List<String> stringList) {
@@ -21,7 +42,7 @@ public class StringListConverter implements AttributeConverter<List<String>, Str
             return null;
         }
         try {
-            return objectMapper.writeValueAsString(stringList);
+            return WRITER.writeValueAsString(stringList);
         } catch (JsonProcessingException e) {
             // 處理序列化錯誤，例如記錄日誌或拋出運行時異常
             throw new RuntimeException("Error converting List<String> to JSON string", e);
@@ -31,14 +52,33 @@ public class StringListConverter implements AttributeConverter<List<String>, Str
     @Override
     public List<String> convertToEntityAttribute(String dbData) {
         if (dbData == null || dbData.trim().isEmpty()) {
-            return new ArrayList<>();
+            return List.of();
         }
         try {
-            // 使用 TypeReference 處理泛型類型反序列化
-            return objectMapper.readValue(dbData, new TypeReference<List<String>>() {});
-        } catch (IOException e) {
+            return PARSED_CACHE.get(dbData, StringListConverter::parse);
+        } catch (UncheckedIOException e) {
             // 處理反序列化錯誤
-            throw new RuntimeException("Error converting JSON string to List<String>", e);
+            throw new RuntimeException("Error converting JSON string to List<String>", e.getCause());
+        }
+    }
+
+    // 以 streaming parser 逐一讀取字串元素，不經過 databind 建立中間物件
+    private static List<String> parse(String json) {
+        try (JsonParser parser = READER.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Expected a JSON array but got: " + parser.currentToken());
+            }
+            List<String> values = new ArrayList<>();
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == null || token.isStructStart()) {
+                    throw new IOException("Expected a flat JSON array of strings");
+                }
+                values.add(token == JsonToken.VALUE_NULL ? null : parser.getValueAsString());
+            }
+            return Collections.unmodifiableList(values);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
     }
-}
\ No newline at end of file
+}
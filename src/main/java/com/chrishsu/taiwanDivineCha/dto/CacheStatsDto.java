@@ -0,0 +1,17 @@
+package com.chrishsu.taiwanDivineCha.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheStatsDto {
+    private String name;
+    private Long size;
+    private Long hitCount;
+    private Long missCount;
+    private Long evictionCount;
+    private Double hitRate;
+}
@@ -0,0 +1,42 @@
+package com.chrishsu.taiwanDivineCha.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+// 購物車批次操作：依序套用，全部成功或全部不套用
+@Data
+public class CartBatchRequest {
+
+    @NotEmpty
+    @Size(max = 100)
+    private List<@Valid @NotNull Operation> operations;
+
+    public enum OperationType {
+        ADD,    // 累加數量 (數量至少為 1)
+        UPDATE, // 設定數量 (0 表示刪除)，項目必須已存在
+        REMOVE  // 刪除項目，不需要數量
+    }
+
+    @Data
+    public static class Operation {
+
+        @NotNull
+        private OperationType type;
+
+        @NotBlank
+        private String productId;
+
+        @NotNull
+        private Integer weight;
+
+        @Min(0)
+        private Integer quantity;
+    }
+}
@@ -9,5 +9,6 @@ public class CartDto {
     private Integer cartId;
     private Integer userId;
     private List<CartItemDto> cartItems;
+    private Integer itemCount;
     private Integer totalAmount;
 }
@@ -0,0 +1,15 @@
+package com.chrishsu.taiwanDivineCha.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// 購物車摘要 (頁首徽章等使用)：只包含件數與總金額，不載入項目與產品
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartSummaryDto {
+    private Integer cartId;
+    private Integer itemCount;
+    private Integer totalAmount;
+}
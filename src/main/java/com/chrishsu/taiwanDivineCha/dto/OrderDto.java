@@ -0,0 +1,22 @@
+package com.chrishsu.taiwanDivineCha.dto;
+
+import com.chrishsu.taiwanDivineCha.constant.OrderStatus;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+public class OrderDto {
+    private String orderNumber;
+    private OrderStatus status;
+    private String deliveryMethod;
+    private String paymentMethod;
+    private String recipientName;
+    private String deliveryAddress;
+    private String pickupStore;
+    private Integer itemCount;
+    private Integer totalAmount;
+    private LocalDateTime createdDate;
+    private List<OrderItemDto> orderItems;
+}
@@ -0,0 +1,13 @@
+package com.chrishsu.taiwanDivineCha.dto;
+
+import lombok.Data;
+
+@Data
+public class OrderItemDto {
+    private String productId;
+    private String productName;
+    private Integer weight;
+    private Integer unitPrice;
+    private Integer quantity;
+    private Integer subtotal;
+}
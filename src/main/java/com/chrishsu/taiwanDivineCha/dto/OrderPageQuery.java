@@ -0,0 +1,20 @@
+package com.chrishsu.taiwanDivineCha.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+
+// GET /api/orders 的查詢參數 (依下單時間由新到舊)
+@Data
+public class OrderPageQuery {
+
+    @Min(1)
+    @Max(100)
+    private Integer limit = 20;
+
+    // 上一頁回傳的 nextCursor，第一頁不需提供
+    private String cursor;
+
+    // 是否需要總筆數 (需要額外一次 COUNT 查詢)
+    private boolean withTotal = false;
+}
@@ -0,0 +1,34 @@
+package com.chrishsu.taiwanDivineCha.dto;
+
+import com.chrishsu.taiwanDivineCha.constant.OrderStatus;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+// GET /api/admin/orders 的查詢參數：跨用戶依下單日期區間與狀態搜尋 (依下單時間由新到舊)
+@Data
+public class OrderSearchQuery {
+
+    @Min(1)
+    @Max(100)
+    private Integer limit = 20;
+
+    // 上一頁回傳的 nextCursor，第一頁不需提供 (換了搜尋條件時需從第一頁開始)
+    private String cursor;
+
+    // 訂單狀態，例如 PAID；不提供時搜尋所有狀態
+    private OrderStatus status;
+
+    // 下單日期區間 (含頭尾兩天)，例如 from=2025-10-01&to=2025-10-31；不提供時不限制
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate from;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate to;
+
+    // 是否需要總筆數 (需要額外一次 COUNT 查詢)
+    private boolean withTotal = false;
+}
@@ -0,0 +1,35 @@
+package com.chrishsu.taiwanDivineCha.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// 非同步下單的受理結果與處理進度 (前端以 orderNumber 查詢)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSubmissionDto {
+
+    public enum State {
+        PROCESSING, // 已受理，排隊或處理中
+        CREATED,    // 訂單已建立 (order 欄位為訂單內容)
+        FAILED      // 處理失敗，例如購物車為空或庫存不足 (message 為原因)
+    }
+
+    private String orderNumber;
+    private State state;
+    private String message;
+    private OrderDto order;
+
+    public static OrderSubmissionDto processing(String orderNumber) {
+        return new OrderSubmissionDto(orderNumber, State.PROCESSING, null, null);
+    }
+
+    public static OrderSubmissionDto created(OrderDto order) {
+        return new OrderSubmissionDto(order.getOrderNumber(), State.CREATED, null, order);
+    }
+
+    public static OrderSubmissionDto failed(String orderNumber, String message) {
+        return new OrderSubmissionDto(orderNumber, State.FAILED, message, null);
+    }
+}
@@ -0,0 +1,35 @@
+package com.chrishsu.taiwanDivineCha.dto;
+
+import com.chrishsu.taiwanDivineCha.constant.OrderStatus;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// 訂單列表用的精簡 DTO：欄位都包含在 orders 的分頁索引中，查詢只需讀取索引 (不讀取訂單項目與收件資料)
+// 由 OrderRepository 的 JPQL constructor expression 直接建立
+@Data
+public class OrderSummaryDto {
+
+    // 僅供 keyset 分頁產生游標使用，不回傳給前端
+    @JsonIgnore
+    private Long orderId;
+
+    private String orderNumber;
+    private OrderStatus status;
+    private Integer itemCount;
+    private Integer totalAmount;
+    private LocalDateTime createdDate;
+
+    public OrderSummaryDto() {}
+
+    public OrderSummaryDto(Long orderId, String orderNumber, OrderStatus status, Integer itemCount, Integer totalAmount,
+                           LocalDateTime createdDate) {
+        this.orderId = orderId;
+        this.orderNumber = orderNumber;
+        this.status = status;
+        this.itemCount = itemCount;
+        this.totalAmount = totalAmount;
+        this.createdDate = createdDate;
+    }
+}
@@ -0,0 +1,18 @@
+package com.chrishsu.taiwanDivineCha.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// GET /api/products?ids=... 的結果：products 依請求順序排列，找不到的 id 列在 missingIds
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductBatchResult {
+
+    private List<ProductDto> products;
+
+    private List<String> missingIds;
+}
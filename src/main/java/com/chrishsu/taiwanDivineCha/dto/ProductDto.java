@@ -7,6 +7,7 @@ import jakarta.validation.constraints.PositiveOrZero;
 import lombok.Data;
 
 import java.util.List;
+import java.util.Map;
 
 @Data
 public class ProductDto {
@@ -44,6 +45,9 @@ public class ProductDto {
     private List<String> features; // 前端傳送 List<String>
     private String origin;
 
+    // 各可販售重量 (g) 的售價，由 WeightPricingEngine 預先計算；僅供回傳，寫入產品時不使用
+    private Map<Integer, Integer> weightPrices;
+
     // 後端內部使用的時間戳，通常不在DTO中接收，但可以在返回時包含
     // private LocalDateTime createdDate;
     // private LocalDateTime lastModifiedDate;
@@ -0,0 +1,34 @@
+package com.chrishsu.taiwanDivineCha.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.PositiveOrZero;
+import lombok.Data;
+
+import java.util.List;
+
+// GET /api/products/facets 的查詢參數
+// 同一個 facet 內的多個值為 OR (例如 category=綠茶&category=紅茶)，不同 facet 之間為 AND
+@Data
+public class ProductFacetQuery {
+
+    // 分類顯示名稱，例如 "綠茶"
+    private List<String> category;
+
+    private List<String> origin;
+
+    private List<String> weight;
+
+    @PositiveOrZero(message = "Min price must be positive or zero")
+    private Integer minPrice;
+
+    @PositiveOrZero(message = "Max price must be positive or zero")
+    private Integer maxPrice;
+
+    @Min(1)
+    @Max(100)
+    private int limit = 20;
+
+    // 上一頁回傳的 nextCursor，第一頁不需提供
+    private String cursor;
+}
@@ -0,0 +1,26 @@
+package com.chrishsu.taiwanDivineCha.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+// 篩選結果與各 facet 的數量，例如 facets.category = {"綠茶": 3, "紅茶": 1}
+// 某個 facet 的數量不套用該 facet 自己的條件，前端可直接顯示「再勾選這個值會多幾筆」
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductFacetResult {
+
+    private List<ProductSummaryDto> products;
+
+    private Map<String, Map<String, Integer>> facets;
+
+    // 符合條件的總筆數 (products 只包含目前這一頁)
+    private int total;
+
+    // 下一頁的游標，沒有下一頁時為 null
+    private String nextCursor;
+}
@@ -0,0 +1,32 @@
+package com.chrishsu.taiwanDivineCha.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import lombok.Data;
+
+// GET /api/products?limit=... 的查詢參數
+@Data
+public class ProductPageQuery {
+
+    @NotNull
+    @Min(1)
+    @Max(100)
+    private Integer limit;
+
+    // 上一頁回傳的 nextCursor，第一頁不需提供
+    private String cursor;
+
+    @Pattern(regexp = "(?i)id|price|lastModifiedDate", message = "Sort must be one of id, price, lastModifiedDate")
+    private String sort = "id";
+
+    @Pattern(regexp = "(?i)asc|desc", message = "Direction must be asc or desc")
+    private String direction = "asc";
+
+    // 分類顯示名稱，例如 "綠茶"
+    private String category;
+
+    // 是否需要總筆數 (需要額外一次 COUNT 查詢)
+    private boolean withTotal = false;
+}
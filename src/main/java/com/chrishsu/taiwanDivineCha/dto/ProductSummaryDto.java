@@ -0,0 +1,38 @@
+package com.chrishsu.taiwanDivineCha.dto;
+
+import com.chrishsu.taiwanDivineCha.constant.ProductCategory;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+// 產品列表用的精簡 DTO：只包含列表頁需要的欄位，不讀取 description / detailImages / features 等 TEXT 欄位
+// 由 ProductRepository 的 JPQL constructor expression 直接建立，不經過 StringListConverter
+@Data
+public class ProductSummaryDto {
+
+    private String id;
+    private String name;
+    private ProductCategory category;
+    private String imageUrl;
+    private Integer price;
+
+    // 各可販售重量 (g) 的售價，由 WeightPricingEngine 預先計算 (查詢後才填入)
+    private Map<Integer, Integer> weightPrices;
+
+    // 僅供 keyset 分頁產生游標使用，不回傳給前端
+    @JsonIgnore
+    private LocalDateTime lastModifiedDate;
+
+    public ProductSummaryDto() {}
+
+    public ProductSummaryDto(String id, String name, ProductCategory category, String imageUrl, Integer price, LocalDateTime lastModifiedDate) {
+        this.id = id;
+        this.name = name;
+        this.category = category;
+        this.imageUrl = imageUrl;
+        this.price = price;
+        this.lastModifiedDate = lastModifiedDate;
+    }
+}
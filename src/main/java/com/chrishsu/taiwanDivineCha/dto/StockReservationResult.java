@@ -0,0 +1,28 @@
+package com.chrishsu.taiwanDivineCha.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// 庫存保留結果：失敗時 available 為目前可用庫存，shortfall 為缺少的數量
+@Data
+@AllArgsConstructor
+public class StockReservationResult {
+
+    private String productId;
+
+    private int requested;
+
+    private boolean reserved;
+
+    private int available;
+
+    private int shortfall;
+
+    public static StockReservationResult success(String productId, int requested) {
+        return new StockReservationResult(productId, requested, true, 0, 0);
+    }
+
+    public static StockReservationResult shortfall(String productId, int requested, int available) {
+        return new StockReservationResult(productId, requested, false, available, requested - available);
+    }
+}
@@ -0,0 +1,38 @@
+package com.chrishsu.taiwanDivineCha.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 產品新增、更新、刪除或庫存變動後發布的事件。
+ * 快取等元件透過監聽此事件來失效或重建自己的資料，ProductService 不需要知道有哪些監聽者。
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class ProductChangedEvent {
+
+    // 監聽者的執行順序 (@Order，數字小的先執行)：價格表、搜尋與篩選索引等衍生資料先更新，
+    // 快取失效與目錄版本號 (ETag) 最後，新的 ETag 才不會搭配到尚未更新的搜尋或篩選結果
+    public static final int DERIVED_DATA_ORDER = 0;
+    public static final int CATALOG_VERSION_ORDER = 100;
+
+    public enum ChangeType {
+        CREATED,
+        UPDATED,
+        DELETED,
+        // 只有庫存改變 (保留、歸還、Redis 差額寫回)：只影響含 stock 的單筆產品回應，搜尋、篩選索引與價格表不需重建
+        STOCK_CHANGED
+    }
+
+    private final String productId;
+    private final ChangeType changeType;
+
+    // true 表示此事件是從其他節點經由 Redis 頻道轉發而來，不需要再次廣播
+    private final boolean remote;
+
+    public ProductChangedEvent(String productId, ChangeType changeType) {
+        this(productId, changeType, false);
+    }
+}
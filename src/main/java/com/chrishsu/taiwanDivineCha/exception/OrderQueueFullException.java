@@ -0,0 +1,16 @@
+package com.chrishsu.taiwanDivineCha.exception;
+
+// 訂單處理佇列已滿時拋出，由 OrderController 轉為 503 並帶上 Retry-After
+public class OrderQueueFullException extends RuntimeException {
+
+  private final long retryAfterSeconds;
+
+  public OrderQueueFullException(String message, long retryAfterSeconds) {
+    super(message);
+    this.retryAfterSeconds = retryAfterSeconds;
+  }
+
+  public long getRetryAfterSeconds() {
+    return retryAfterSeconds;
+  }
+}
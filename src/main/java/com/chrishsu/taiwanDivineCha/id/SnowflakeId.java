@@ -0,0 +1,15 @@
+package com.chrishsu.taiwanDivineCha.id;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// 主鍵在寫入前由 SnowflakeIdGenerator 產生 (不使用 AUTO_INCREMENT)，Hibernate 可以批次 INSERT
+@IdGeneratorType(SnowflakeIdentifierGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface SnowflakeId {
+}
@@ -0,0 +1,73 @@
+package com.chrishsu.taiwanDivineCha.id;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 依時間遞增的 64 位元 id (snowflake)：41 位元毫秒時間 (自 EPOCH 起，約可用 69 年) + 10 位元節點編號 + 12 位元序號。
+ * 不同節點只要節點編號不同就不會重複，不需要互相協調；同一節點內以 AtomicLong 的 CAS 產生，不使用鎖。
+ * <p>
+ * 狀態保存「邏輯時間 + 序號」：時鐘前進時序號歸零，同一毫秒內序號加一，序號用完時直接借用下一毫秒。
+ * 時鐘倒退 (例如 NTP 校時) 時繼續沿用邏輯時間，id 仍然遞增；邏輯時間領先系統時鐘超過 maxClockBackwardMs 時拋出例外，
+ * 讓領先量維持在很小的範圍，重新啟動 (邏輯時間重設為系統時鐘) 所需的時間通常就足以追上。
+ * <p>
+ * 注意：邏輯時間只保存在記憶體，不會寫入資料庫或檔案。停機期間系統時鐘被往回調整，重新啟動後無法察覺，
+ * 可能再次產生停機前已發出的 id (主鍵衝突)。部署時需讓時鐘只以漸進 (slew) 方式校正，
+ * 若曾大幅往回調整，需等到系統時鐘超過調整前的時間再啟動同一節點編號的服務。
+ */
+public class SnowflakeIdGenerator {
+
+    // 2025-01-01T00:00:00Z
+    public static final long EPOCH = Instant.parse("2025-01-01T00:00:00Z").toEpochMilli();
+
+    public static final int NODE_BITS = 10;
+    public static final int SEQUENCE_BITS = 12;
+    public static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private final long nodeId;
+    private final long maxClockBackwardMs;
+    // (邏輯時間 << SEQUENCE_BITS) | 序號，即最後一次發出的 id 去掉節點編號
+    private final AtomicLong state = new AtomicLong();
+
+    public SnowflakeIdGenerator(long nodeId, long maxClockBackwardMs) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+        }
+        this.nodeId = nodeId;
+        this.maxClockBackwardMs = maxClockBackwardMs;
+    }
+
+    public long nextId() {
+        while (true) {
+            long last = state.get();
+            long lastTimestamp = last >>> SEQUENCE_BITS;
+            long now = System.currentTimeMillis() - EPOCH;
+            long next;
+            if (now > lastTimestamp) {
+                next = now << SEQUENCE_BITS;
+            } else {
+                if (lastTimestamp - now > maxClockBackwardMs) {
+                    throw new IllegalStateException("Clock moved backwards by " + (lastTimestamp - now)
+                            + " ms, refusing to generate ids for node " + nodeId);
+                }
+                // 同一毫秒或時鐘倒退：序號加一，序號用完時進位到下一毫秒
+                next = last + 1;
+            }
+            if (state.compareAndSet(last, next)) {
+                return ((next >>> SEQUENCE_BITS) << (NODE_BITS + SEQUENCE_BITS))
+                        | (nodeId << SEQUENCE_BITS)
+                        | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    public long getNodeId() {
+        return nodeId;
+    }
+
+    // 由 id 取回產生時間 (毫秒)，方便除錯
+    public static long timestampOf(long id) {
+        return (id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH;
+    }
+}
@@ -0,0 +1,55 @@
+package com.chrishsu.taiwanDivineCha.id;
+
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.id.factory.spi.CustomIdGeneratorCreationContext;
+
+import java.lang.reflect.Member;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link SnowflakeId} 的 Hibernate 主鍵產生器。節點編號與時鐘倒退容忍值由 IdGeneratorConfig 傳入 Hibernate 設定；
+ * 同一節點的所有實體共用一個 SnowflakeIdGenerator，id 在各資料表間也不重複。
+ */
+public class SnowflakeIdentifierGenerator implements IdentifierGenerator {
+
+    public static final String NODE_ID_SETTING = "app.id.node-id";
+    public static final String MAX_CLOCK_BACKWARD_MS_SETTING = "app.id.max-clock-backward-ms";
+
+    private static final Map<Long, SnowflakeIdGenerator> GENERATORS = new ConcurrentHashMap<>();
+
+    private final SnowflakeIdGenerator generator;
+
+    public SnowflakeIdentifierGenerator(SnowflakeId config, Member member, CustomIdGeneratorCreationContext context) {
+        Map<String, Object> settings = context.getServiceRegistry().requireService(ConfigurationService.class).getSettings();
+        long nodeId = requireNodeId(settings.get(NODE_ID_SETTING));
+        long maxClockBackwardMs = toLong(settings.get(MAX_CLOCK_BACKWARD_MS_SETTING), 5000L);
+        this.generator = GENERATORS.computeIfAbsent(nodeId, id -> {
+            System.out.println("Snowflake id generator using node id " + id + ".");
+            return new SnowflakeIdGenerator(id, maxClockBackwardMs);
+        });
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        return generator.nextId();
+    }
+
+    // 節點編號必須由 IdGeneratorConfig 解析後傳入；依主機名稱或 PID 推算在多個節點時可能相同而產生重複 id
+    private static long requireNodeId(Object configured) {
+        long nodeId = toLong(configured, -1L);
+        if (nodeId < 0) {
+            throw new IllegalStateException(NODE_ID_SETTING + " must be configured for the snowflake id generator.");
+        }
+        return nodeId;
+    }
+
+    private static long toLong(Object value, long defaultValue) {
+        if (value == null || value.toString().trim().isEmpty()) {
+            return defaultValue;
+        }
+        return Long.parseLong(value.toString().trim());
+    }
+}
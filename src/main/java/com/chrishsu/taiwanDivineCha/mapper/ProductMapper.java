@@ -1,12 +1,22 @@
 package com.chrishsu.taiwanDivineCha.mapper;
 
 import com.chrishsu.taiwanDivineCha.dto.ProductDto;
+import com.chrishsu.taiwanDivineCha.dto.ProductSummaryDto;
 import com.chrishsu.taiwanDivineCha.model.Product;
+import com.chrishsu.taiwanDivineCha.pricing.WeightPricingEngine;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 @Component
 public class ProductMapper {
 
+    private final WeightPricingEngine weightPricingEngine;
+
+    public ProductMapper(WeightPricingEngine weightPricingEngine) {
+        this.weightPricingEngine = weightPricingEngine;
+    }
+
     public ProductDto toDto(Product product) {
         if (product == null) {
             return null;
@@ -23,10 +33,31 @@ public class ProductMapper {
         dto.setWeight(product.getWeight());
         dto.setFeatures(product.getFeatures()); // Converter 會自動處理 JSON 轉換
         dto.setOrigin(product.getOrigin());
+        dto.setWeightPrices(weightPricingEngine.pricesOf(product.getId(), product.getPrice()));
         // createdDate 和 lastModifiedDate 可以在某些情況下包含在響應 DTO 中
         return dto;
     }
 
+    // 轉換為列表用的精簡 DTO (用於記憶體索引等已載入完整實體的情況)
+    public ProductSummaryDto toSummaryDto(Product product) {
+        if (product == null) {
+            return null;
+        }
+        return withWeightPrices(new ProductSummaryDto(product.getId(), product.getName(), product.getCategory(),
+                product.getImageUrl(), product.getPrice(), product.getLastModifiedDate()));
+    }
+
+    // 為 JPQL 直接建立的精簡 DTO 填入各重量的售價
+    public ProductSummaryDto withWeightPrices(ProductSummaryDto summary) {
+        summary.setWeightPrices(weightPricingEngine.pricesOf(summary.getId(), summary.getPrice()));
+        return summary;
+    }
+
+    public List<ProductSummaryDto> withWeightPrices(List<ProductSummaryDto> summaries) {
+        summaries.forEach(this::withWeightPrices);
+        return summaries;
+    }
+
     public Product toEntity(ProductDto dto) {
         if (dto == null) {
             return null;
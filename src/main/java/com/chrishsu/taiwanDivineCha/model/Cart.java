@@ -29,6 +29,13 @@ public class Cart {
     @ToString.Exclude
     private List<CartItem> cartItems = new ArrayList<>();
 
+    // 反正規化的合計，每次修改購物車時以差額更新；NULL 表示需要重新計算 (例如產品改價後)
+    @Column(name = "item_count")
+    private Integer itemCount = 0; // 商品總件數 (各項目數量加總)
+
+    @Column(name = "total_amount")
+    private Integer totalAmount = 0;
+
     @Column(name = "created_date", nullable = false, updatable = false)
     private LocalDateTime createdDate;
 
@@ -9,7 +9,8 @@ import java.time.LocalDateTime;
 
 @Data
 @Entity
-@Table(name = "cart_item")
+@Table(name = "cart_item", uniqueConstraints = // 同一購物車的同一產品、同一重量只能有一筆 (加入購物車以 upsert 寫入)
+        @UniqueConstraint(name = "uk_cart_item_cart_product_weight", columnNames = {"cart_id", "product_id", "weight"}))
 public class CartItem {
 
     @Id
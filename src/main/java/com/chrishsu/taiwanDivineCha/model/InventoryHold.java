@@ -0,0 +1,44 @@
+package com.chrishsu.taiwanDivineCha.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// 購物車項目對產品庫存的保留 (有期限)，到期後由排程批次歸還庫存
+@Data
+@Entity
+@Table(name = "inventory_hold",
+        uniqueConstraints = @UniqueConstraint(name = "uk_inventory_hold_cart_product_weight",
+                columnNames = {"cart_id", "product_id", "weight"}),
+        indexes = @Index(name = "idx_inventory_hold_expires_at", columnList = "expires_at")) // 依到期時間排序的索引，回收時不需掃描整張表
+public class InventoryHold {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long holdId;
+
+    @Column(name = "cart_id", nullable = false)
+    private Integer cartId;
+
+    @Column(name = "product_id", nullable = false)
+    private String productId;
+
+    @Column(name = "weight", nullable = false)
+    private Integer weight;
+
+    // 已從 products.stock 扣除的數量
+    @Column(name = "quantity", nullable = false)
+    private Integer quantity;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Column(name = "created_date", nullable = false, updatable = false)
+    private LocalDateTime createdDate;
+
+    @PrePersist
+    protected void onCreate() {
+        this.createdDate = LocalDateTime.now();
+    }
+}
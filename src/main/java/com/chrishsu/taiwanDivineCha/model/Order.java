@@ -0,0 +1,100 @@
+package com.chrishsu.taiwanDivineCha.model;
+
+import com.chrishsu.taiwanDivineCha.constant.OrderStatus;
+import com.chrishsu.taiwanDivineCha.id.SnowflakeId;
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Entity
+// order 為 SQL 保留字，表名使用 orders
+// 訂單列表依 (created_date, order_id) 做 keyset 分頁；三個索引都包含列表投影的欄位 (covering index)，
+// 查詢只讀取索引即可，不需回表，深層分頁與第一頁一樣快
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_user_created_date",
+                columnList = "user_id, created_date, order_id, order_number, status, item_count, total_amount"),
+        @Index(name = "idx_orders_status_created_date",
+                columnList = "status, created_date, order_id, order_number, item_count, total_amount"),
+        @Index(name = "idx_orders_created_date",
+                columnList = "created_date, order_id, order_number, status, item_count, total_amount")
+})
+public class Order {
+
+    @Id
+    @SnowflakeId // 寫入前產生的時間遞增 id，可批次 INSERT
+    private Long orderId;
+
+    // 對外顯示與查詢用的訂單編號 (不暴露遞增的主鍵)
+    @Column(name = "order_number", nullable = false, unique = true, length = 32)
+    private String orderNumber;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private User user;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private OrderStatus status;
+
+    @Column(name = "delivery_method", nullable = false, length = 50)
+    private String deliveryMethod;
+
+    // 付款方式 (信用卡號、有效期限、CVC 與匯款帳號等付款資料一律不存入資料庫)
+    @Column(name = "payment_method", nullable = false, length = 50)
+    private String paymentMethod;
+
+    @Column(name = "recipient_name", nullable = false)
+    private String recipientName;
+
+    @Column(name = "recipient_email")
+    private String recipientEmail;
+
+    @Column(name = "recipient_phone")
+    private String recipientPhone;
+
+    @Column(name = "delivery_address") // 宅配地址 (門市取貨時為 NULL)
+    private String deliveryAddress;
+
+    @Column(name = "pickup_store") // 取貨門市 (宅配時為 NULL)
+    private String pickupStore;
+
+    @Column(name = "delivery_notes", columnDefinition = "TEXT")
+    private String deliveryNotes;
+
+    @Column(name = "item_count", nullable = false)
+    private Integer itemCount; // 商品總件數
+
+    @Column(name = "total_amount", nullable = false)
+    private Integer totalAmount;
+
+    // 訂單項目隨訂單一起寫入 (主鍵預先產生，Hibernate 以 JDBC batch 送出)
+    @OneToMany(mappedBy = "order", cascade = CascadeType.PERSIST)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private List<OrderItem> orderItems = new ArrayList<>();
+
+    @Column(name = "created_date", nullable = false, updatable = false)
+    private LocalDateTime createdDate;
+
+    @Column(name = "last_modified_date", nullable = false)
+    private LocalDateTime lastModifiedDate;
+
+    @PrePersist
+    protected void onCreate() {
+        this.createdDate = LocalDateTime.now();
+        this.lastModifiedDate = LocalDateTime.now();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        this.lastModifiedDate = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,53 @@
+package com.chrishsu.taiwanDivineCha.model;
+
+import com.chrishsu.taiwanDivineCha.id.SnowflakeId;
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+// 訂單項目：保存下單當下的產品名稱與售價快照，之後產品改價或下架都不影響歷史訂單
+@Data
+@Entity
+@Table(name = "order_item", indexes = @Index(name = "idx_order_item_order_id", columnList = "order_id"))
+public class OrderItem {
+
+    @Id
+    @SnowflakeId // 寫入前產生的時間遞增 id，可批次 INSERT
+    private Long orderItemId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "order_id", nullable = false)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private Order order;
+
+    // 只保存產品 id (不設外鍵)，產品下架後訂單仍可保留
+    @Column(name = "product_id", nullable = false)
+    private String productId;
+
+    @Column(name = "product_name", nullable = false)
+    private String productName;
+
+    @Column(name = "weight", nullable = false)
+    private Integer weight; // 重量 (公克)
+
+    @Column(name = "unit_price", nullable = false)
+    private Integer unitPrice; // 該重量的售價
+
+    @Column(name = "quantity", nullable = false)
+    private Integer quantity;
+
+    @Column(name = "subtotal", nullable = false)
+    private Integer subtotal;
+
+    @Column(name = "created_date", nullable = false, updatable = false)
+    private LocalDateTime createdDate;
+
+    @PrePersist
+    protected void onCreate() {
+        this.createdDate = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,58 @@
+package com.chrishsu.taiwanDivineCha.model;
+
+import com.chrishsu.taiwanDivineCha.constant.OutboxEventType;
+import com.chrishsu.taiwanDivineCha.constant.OutboxStatus;
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// 與領域資料在同一個交易內寫入的事件 (transactional outbox)，交易提交後由排程分批派送
+@Data
+@Entity
+@Table(name = "outbox_event",
+        indexes = @Index(name = "idx_outbox_event_status_next_attempt_at", columnList = "status, next_attempt_at")) // 取出待派送事件時不需掃描整張表
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long eventId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type", nullable = false, length = 50)
+    private OutboxEventType eventType;
+
+    // 事件所屬的資料 (例如用戶 id 或訂單編號)，方便追查
+    @Column(name = "aggregate_id", nullable = false, length = 64)
+    private String aggregateId;
+
+    // 派送所需的資料 (JSON)
+    @Column(name = "payload", nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private OutboxStatus status;
+
+    // 已嘗試派送的次數
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts;
+
+    // 下次可派送的時間；派送中的事件會把它往後推到租約到期，節點中斷時由其他節點在租約到期後重新派送
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    @Column(name = "created_date", nullable = false, updatable = false)
+    private LocalDateTime createdDate;
+
+    @Column(name = "sent_date")
+    private LocalDateTime sentDate;
+
+    @PrePersist
+    protected void onCreate() {
+        this.createdDate = LocalDateTime.now();
+    }
+}
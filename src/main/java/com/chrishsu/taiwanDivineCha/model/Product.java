@@ -11,7 +11,14 @@ import java.util.List; // 用於 detailImages 和 features
 
 @Data
 @Entity
-@Table(name = "products") // 確保表名為 products
+@Table(name = "products", indexes = { // 確保表名為 products
+    // keyset 分頁使用的複合索引 (排序欄位 + id)；依分類篩選時使用 (category, 排序欄位, id)
+    @Index(name = "idx_products_category_id", columnList = "category, id"),
+    @Index(name = "idx_products_price_id", columnList = "price, id"),
+    @Index(name = "idx_products_last_modified_id", columnList = "last_modified_date, id"),
+    @Index(name = "idx_products_category_price_id", columnList = "category, price, id"),
+    @Index(name = "idx_products_category_last_modified_id", columnList = "category, last_modified_date, id")
+})
 public class Product {
 
   @Id // 設定為主鍵
@@ -0,0 +1,143 @@
+package com.chrishsu.taiwanDivineCha.pricing;
+
+import com.chrishsu.taiwanDivineCha.event.ProductChangedEvent;
+import com.chrishsu.taiwanDivineCha.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 依重量計價的價格表。產品的 price 為一斤 (600g) 的價格，其他可販售重量依設定的倍率換算並四捨五入為整數。
+ * 每個產品的各重量價格在啟動時與產品異動 (ProductChangedEvent) 時預先算好，購物車、結帳與產品列表直接讀取 int 價格。
+ * 讀取時會比對基準價格，若事件尚未處理 (例如快取中的產品比價格表新) 會當場重算，不會用到過期的價格。
+ */
+@Component
+public class WeightPricingEngine {
+
+    private final ProductRepository productRepository;
+
+    // 可販售的重量 (g) 與對應一斤價格的倍率，依重量由大到小排列
+    private final int[] weights;
+    private final double[] multipliers;
+
+    private final Map<String, PriceRow> priceRows = new ConcurrentHashMap<>();
+
+    public WeightPricingEngine(ProductRepository productRepository,
+                               @Value("${app.pricing.weight-multipliers:600:1.0,300:0.5,150:0.25}") String weightMultipliers) {
+        this.productRepository = productRepository;
+        Map<Integer, Double> rules = new TreeMap<>(Collections.reverseOrder());
+        for (String rule : weightMultipliers.split(",")) {
+            String[] parts = rule.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid weight pricing rule: " + rule);
+            }
+            rules.put(Integer.valueOf(parts[0].trim()), Double.valueOf(parts[1].trim()));
+        }
+        this.weights = rules.keySet().stream().mapToInt(Integer::intValue).toArray();
+        this.multipliers = rules.values().stream().mapToDouble(Double::doubleValue).toArray();
+    }
+
+    // 應用程式啟動完成後以一次查詢 (只取 id 與 price) 建立所有產品的價格表
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        try {
+            priceRows.clear();
+            for (Object[] row : productRepository.findAllPrices()) {
+                priceRows.put((String) row[0], computeRow(((Number) row[1]).intValue()));
+            }
+            System.out.println("Weight price table built for " + priceRows.size() + " products.");
+        } catch (RuntimeException e) {
+            System.err.println("Failed to build weight price table: " + e.getMessage());
+        }
+    }
+
+    // 產品寫入後 (包含其他節點轉發的事件) 只重算該筆產品
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(ProductChangedEvent.DERIVED_DATA_ORDER)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.getChangeType() == ProductChangedEvent.ChangeType.STOCK_CHANGED) {
+            return; // 售價與庫存無關
+        }
+        if (event.getChangeType() == ProductChangedEvent.ChangeType.DELETED) {
+            priceRows.remove(event.getProductId());
+            return;
+        }
+        productRepository.findPriceById(event.getProductId()).ifPresentOrElse(
+                price -> priceRows.put(event.getProductId(), computeRow(price)),
+                () -> priceRows.remove(event.getProductId()));
+    }
+
+    /**
+     * 取得產品在指定重量的售價；未設定倍率的重量以一斤價格計算。
+     * @param basePrice 呼叫端手上產品的一斤價格，與價格表不一致時以此重算
+     */
+    public int priceOf(String productId, int basePrice, int weight) {
+        PriceRow row = rowOf(productId, basePrice);
+        for (int i = 0; i < weights.length; i++) {
+            if (weights[i] == weight) {
+                return row.prices[i];
+            }
+        }
+        return basePrice;
+    }
+
+    // 只依價格表取得售價 (呼叫端手上沒有產品資料時使用)；產品不在價格表中 (已下架) 時返回 null
+    public Integer priceOf(String productId, int weight) {
+        PriceRow row = priceRows.get(productId);
+        if (row == null) {
+            return null;
+        }
+        for (int i = 0; i < weights.length; i++) {
+            if (weights[i] == weight) {
+                return row.prices[i];
+            }
+        }
+        return row.basePrice;
+    }
+
+    // 產品所有可販售重量的售價 (重量 → 價格，依重量由大到小)，供產品列表與詳情回傳
+    public Map<Integer, Integer> pricesOf(String productId, int basePrice) {
+        return rowOf(productId, basePrice).pricesByWeight;
+    }
+
+    private PriceRow rowOf(String productId, int basePrice) {
+        PriceRow row = priceRows.get(productId);
+        if (row == null || row.basePrice != basePrice) {
+            row = computeRow(basePrice);
+            priceRows.put(productId, row);
+        }
+        return row;
+    }
+
+    private PriceRow computeRow(int basePrice) {
+        int[] prices = new int[weights.length];
+        Map<Integer, Integer> pricesByWeight = new LinkedHashMap<>();
+        for (int i = 0; i < weights.length; i++) {
+            prices[i] = (int) Math.round(basePrice * multipliers[i]);
+            pricesByWeight.put(weights[i], prices[i]);
+        }
+        return new PriceRow(basePrice, prices, Collections.unmodifiableMap(pricesByWeight));
+    }
+
+    private static class PriceRow {
+
+        private final int basePrice;
+        private final int[] prices; // 與 weights 同一順序
+        private final Map<Integer, Integer> pricesByWeight;
+
+        private PriceRow(int basePrice, int[] prices, Map<Integer, Integer> pricesByWeight) {
+            this.basePrice = basePrice;
+            this.prices = prices;
+            this.pricesByWeight = pricesByWeight;
+        }
+    }
+}
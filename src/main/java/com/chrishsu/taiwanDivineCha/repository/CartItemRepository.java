@@ -3,7 +3,12 @@ package com.chrishsu.taiwanDivineCha.repository;
 import com.chrishsu.taiwanDivineCha.model.Cart;
 import com.chrishsu.taiwanDivineCha.model.CartItem;
 import com.chrishsu.taiwanDivineCha.model.Product;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -14,4 +19,22 @@ public interface CartItemRepository extends JpaRepository<CartItem, Integer> {
     Optional<CartItem> findByCartAndProductAndWeight(Cart cart, Product product, Integer weight);
     void deleteByCartAndProductAndWeight(Cart cart, Product product, Integer weight);
     List<CartItem> findByCartAndProduct(Cart cart, Product product);
-}
\ No newline at end of file
+
+    // 修改數量時鎖定該項目，並發的修改依序執行，購物車合計的差額才會正確 (直接以 id 定位，不需先載入購物車)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT ci FROM CartItem ci WHERE ci.cart.cartId = :cartId AND ci.product.id = :productId AND ci.weight = :weight")
+    Optional<CartItem> findForUpdate(@Param("cartId") Integer cartId, @Param("productId") String productId,
+                                     @Param("weight") Integer weight);
+
+    // 加入購物車：不存在時新增，已存在時累加數量，一個語句完成 (依 uk_cart_item_cart_product_weight 判斷重複)
+    @Modifying
+    @Query(value = "INSERT INTO cart_item (cart_id, product_id, weight, quantity, created_date, last_modified_date) " +
+            "VALUES (:cartId, :productId, :weight, :quantity, NOW(), NOW()) " +
+            "ON DUPLICATE KEY UPDATE quantity = quantity + :quantity, last_modified_date = NOW()", nativeQuery = true)
+    int upsertQuantity(@Param("cartId") Integer cartId, @Param("productId") String productId,
+                       @Param("weight") Integer weight, @Param("quantity") Integer quantity);
+
+    // 重新計算合計用：只查詢計價需要的欄位 (每列為 [productId, price, weight, quantity])
+    @Query("SELECT p.id, p.price, ci.weight, ci.quantity FROM CartItem ci JOIN ci.product p WHERE ci.cart.cartId = :cartId")
+    List<Object[]> findPricingRowsByCartId(@Param("cartId") Integer cartId);
+}
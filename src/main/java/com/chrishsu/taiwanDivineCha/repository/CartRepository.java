@@ -2,7 +2,11 @@ package com.chrishsu.taiwanDivineCha.repository;
 
 import com.chrishsu.taiwanDivineCha.model.Cart;
 import com.chrishsu.taiwanDivineCha.model.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -10,4 +14,33 @@ import java.util.Optional;
 @Repository
 public interface CartRepository extends JpaRepository<Cart, Integer> {
     Optional<Cart> findByUser(User user);
+
+    // 購物車頁面使用：以一個 JOIN 查詢同時載入購物車、項目與產品，避免逐筆延遲載入 (N+1)
+    @EntityGraph(attributePaths = {"cartItems", "cartItems.product"})
+    @Query("SELECT c FROM Cart c WHERE c.user = :user")
+    Optional<Cart> findWithItemsByUser(@Param("user") User user);
+
+    // 已知 cartId (由 JWT 取得) 時不需要經過 user
+    @EntityGraph(attributePaths = {"cartItems", "cartItems.product"})
+    @Query("SELECT c FROM Cart c WHERE c.cartId = :cartId")
+    Optional<Cart> findWithItemsByCartId(@Param("cartId") Integer cartId);
+
+    // --- 反正規化的合計 ---
+    // 以差額更新合計 (在資料庫中累加，並發的修改不會互相覆蓋)；已失效 (NULL) 的合計維持 NULL
+    @Modifying
+    @Query("UPDATE Cart c SET c.itemCount = c.itemCount + :quantityDelta, c.totalAmount = c.totalAmount + :amountDelta " +
+            "WHERE c.cartId = :cartId")
+    int adjustTotals(@Param("cartId") Integer cartId, @Param("quantityDelta") int quantityDelta,
+                     @Param("amountDelta") int amountDelta);
+
+    @Modifying
+    @Query("UPDATE Cart c SET c.itemCount = :itemCount, c.totalAmount = :totalAmount WHERE c.cartId = :cartId")
+    int setTotals(@Param("cartId") Integer cartId, @Param("itemCount") Integer itemCount,
+                  @Param("totalAmount") Integer totalAmount);
+
+    // 產品改價或下架後，含有該產品的購物車合計失效，下次讀取時重新計算
+    @Modifying
+    @Query("UPDATE Cart c SET c.totalAmount = NULL " +
+            "WHERE c.cartId IN (SELECT ci.cart.cartId FROM CartItem ci WHERE ci.product.id = :productId)")
+    int invalidateTotalsByProductId(@Param("productId") String productId);
 }
@@ -0,0 +1,46 @@
+package com.chrishsu.taiwanDivineCha.repository;
+
+import com.chrishsu.taiwanDivineCha.model.InventoryHold;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface InventoryHoldRepository extends JpaRepository<InventoryHold, Long> {
+
+    // 鎖定該筆保留，避免與到期回收同時修改
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT h FROM InventoryHold h WHERE h.cartId = :cartId AND h.productId = :productId AND h.weight = :weight")
+    Optional<InventoryHold> findForUpdate(@Param("cartId") Integer cartId, @Param("productId") String productId,
+                                          @Param("weight") Integer weight);
+
+    // 保留不存在時新增一筆數量為 0 的保留，已存在時不修改 (依 uk_inventory_hold_cart_product_weight 判斷重複)；
+    // 兩種情況都會對該筆資料列取得排他鎖，之後的 findForUpdate 不會鎖定不存在的資料列 (gap lock)
+    @Modifying
+    @Query(value = "INSERT INTO inventory_hold (cart_id, product_id, weight, quantity, expires_at, created_date) " +
+            "VALUES (:cartId, :productId, :weight, 0, :expiresAt, NOW()) " +
+            "ON DUPLICATE KEY UPDATE quantity = quantity", nativeQuery = true)
+    int insertIfAbsent(@Param("cartId") Integer cartId, @Param("productId") String productId,
+                       @Param("weight") Integer weight, @Param("expiresAt") LocalDateTime expiresAt);
+
+    List<InventoryHold> findByCartId(Integer cartId);
+
+    // 購物車有任何操作時延長整個購物車的保留期限
+    @Modifying
+    @Query("UPDATE InventoryHold h SET h.expiresAt = :expiresAt WHERE h.cartId = :cartId")
+    int extendByCartId(@Param("cartId") Integer cartId, @Param("expiresAt") LocalDateTime expiresAt);
+
+    // 依 expires_at 索引取出一批已到期的保留並鎖定；SKIP LOCKED 讓多個節點可同時回收不同的批次，
+    // 也不會等待正在被購物車操作鎖定的資料列
+    @Query(value = "SELECT * FROM inventory_hold WHERE expires_at <= :now ORDER BY expires_at LIMIT :limit " +
+            "FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<InventoryHold> findExpiredForUpdate(@Param("now") LocalDateTime now, @Param("limit") int limit);
+}
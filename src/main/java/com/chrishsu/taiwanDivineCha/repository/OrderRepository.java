@@ -0,0 +1,58 @@
+package com.chrishsu.taiwanDivineCha.repository;
+
+import com.chrishsu.taiwanDivineCha.constant.OrderStatus;
+import com.chrishsu.taiwanDivineCha.dto.OrderSummaryDto;
+import com.chrishsu.taiwanDivineCha.model.Order;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface OrderRepository extends JpaRepository<Order, Long> {
+
+    // 列表投影共用的 constructor expression (欄位順序需與 OrderSummaryDto 建構子一致，且都需包含在分頁索引中)
+    String SUMMARY_COLUMNS = "new com.chrishsu.taiwanDivineCha.dto.OrderSummaryDto(" +
+            "o.orderId, o.orderNumber, o.status, o.itemCount, o.totalAmount, o.createdDate)";
+
+    // keyset 條件：排在游標 (createdDate, orderId) 之後，依下單時間由新到舊
+    String AFTER_CURSOR = "(:afterDate IS NULL OR o.createdDate < :afterDate " +
+            "OR (o.createdDate = :afterDate AND o.orderId < :afterId))";
+
+    Optional<Order> findByOrderNumber(String orderNumber);
+
+    // 使用 idx_orders_user_created_date
+    @Query("SELECT " + SUMMARY_COLUMNS + " FROM Order o WHERE o.user.userId = :userId AND " + AFTER_CURSOR +
+            " ORDER BY o.createdDate DESC, o.orderId DESC")
+    List<OrderSummaryDto> findPageByUserId(@Param("userId") Integer userId, @Param("afterDate") LocalDateTime afterDate,
+                                           @Param("afterId") Long afterId, Pageable pageable);
+
+    long countByUserUserId(Integer userId);
+
+    // 依狀態搜尋，使用 idx_orders_status_created_date
+    @Query("SELECT " + SUMMARY_COLUMNS + " FROM Order o WHERE o.status = :status " +
+            "AND (:from IS NULL OR o.createdDate >= :from) AND (:to IS NULL OR o.createdDate < :to) AND " + AFTER_CURSOR +
+            " ORDER BY o.createdDate DESC, o.orderId DESC")
+    List<OrderSummaryDto> findPageByStatus(@Param("status") OrderStatus status,
+                                           @Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+                                           @Param("afterDate") LocalDateTime afterDate, @Param("afterId") Long afterId,
+                                           Pageable pageable);
+
+    // 不限狀態，使用 idx_orders_created_date
+    @Query("SELECT " + SUMMARY_COLUMNS + " FROM Order o " +
+            "WHERE (:from IS NULL OR o.createdDate >= :from) AND (:to IS NULL OR o.createdDate < :to) AND " + AFTER_CURSOR +
+            " ORDER BY o.createdDate DESC, o.orderId DESC")
+    List<OrderSummaryDto> findPage(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+                                   @Param("afterDate") LocalDateTime afterDate, @Param("afterId") Long afterId,
+                                   Pageable pageable);
+
+    @Query("SELECT COUNT(o) FROM Order o WHERE (:status IS NULL OR o.status = :status) " +
+            "AND (:from IS NULL OR o.createdDate >= :from) AND (:to IS NULL OR o.createdDate < :to)")
+    long countForSearch(@Param("status") OrderStatus status,
+                        @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+}
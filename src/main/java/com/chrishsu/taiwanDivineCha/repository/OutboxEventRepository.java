@@ -0,0 +1,43 @@
+package com.chrishsu.taiwanDivineCha.repository;
+
+import com.chrishsu.taiwanDivineCha.constant.OutboxStatus;
+import com.chrishsu.taiwanDivineCha.model.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // 依 (status, next_attempt_at) 索引取出一批到期的事件並鎖定；SKIP LOCKED 讓多個節點可同時派送不同的批次
+    @Query(value = "SELECT * FROM outbox_event WHERE status = 'PENDING' AND next_attempt_at <= :now " +
+            "ORDER BY next_attempt_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<OutboxEvent> findDueForUpdate(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    // 取得租約：派送期間其他節點不會再取出這些事件，並先累加嘗試次數
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.nextAttemptAt = :leaseUntil, e.attempts = e.attempts + 1 WHERE e.eventId IN :eventIds")
+    int lease(@Param("eventIds") List<Long> eventIds, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.status = :status, e.sentDate = :sentDate, e.lastError = NULL WHERE e.eventId IN :eventIds")
+    int markSent(@Param("eventIds") List<Long> eventIds, @Param("status") OutboxStatus status,
+                 @Param("sentDate") LocalDateTime sentDate);
+
+    // 派送失敗：排定下次重試時間，或在超過重試次數時改為 FAILED
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.status = :status, e.nextAttemptAt = :nextAttemptAt, e.lastError = :lastError " +
+            "WHERE e.eventId = :eventId")
+    int markFailedAttempt(@Param("eventId") Long eventId, @Param("status") OutboxStatus status,
+                          @Param("nextAttemptAt") LocalDateTime nextAttemptAt, @Param("lastError") String lastError);
+
+    // 清除已派送且超過保存期限的事件
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.status = :status AND e.sentDate < :before")
+    int deleteSentBefore(@Param("status") OutboxStatus status, @Param("before") LocalDateTime before);
+}
@@ -1,15 +1,28 @@
 package com.chrishsu.taiwanDivineCha.repository;
 
 import com.chrishsu.taiwanDivineCha.constant.ProductCategory;
+import com.chrishsu.taiwanDivineCha.dto.ProductSummaryDto;
 import com.chrishsu.taiwanDivineCha.model.Product;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 // @Repository 註解是可選的，因為 JpaRepository 已經包含其功能，但加上它會讓意圖更明確。
 @Repository
 public interface ProductRepository extends JpaRepository<Product, String> {
+
+    // 列表投影共用的 constructor expression (欄位順序需與 ProductSummaryDto 建構子一致)
+    String SUMMARY_COLUMNS = "new com.chrishsu.taiwanDivineCha.dto.ProductSummaryDto(" +
+            "p.id, p.name, p.category, p.imageUrl, p.price, p.lastModifiedDate)";
+
     // JpaRepository 提供了基本的 CRUD 操作：
     // - save(T entity): 保存或更新實體
     // - findById(ID id): 根據ID查找實體，返回 Optional<T>
@@ -28,6 +41,127 @@ public interface ProductRepository extends JpaRepository<Product, String> {
     // 範例：根據名稱模糊查詢，忽略大小寫 (使用 CONTAINS 或 LIKE)
     List<Product> findByNameContainingIgnoreCase(String name);
 
+    long countByCategory(ProductCategory category);
+
+    // --- 列表用的精簡投影 (ProductSummaryDto) ---
+    // 只查詢列表需要的欄位，不讀取 TEXT 欄位，也不觸發 StringListConverter 的 JSON 解析
+
+    @Query("SELECT " + SUMMARY_COLUMNS + " FROM Product p ORDER BY p.id ASC")
+    List<ProductSummaryDto> findAllSummaries();
+
+    @Query("SELECT " + SUMMARY_COLUMNS + " FROM Product p WHERE p.category = :category ORDER BY p.id ASC")
+    List<ProductSummaryDto> findSummariesByCategory(@Param("category") ProductCategory category);
+
+    // --- Keyset 分頁查詢 ---
+    // 以 (排序欄位, id) 作為游標，只讀取游標之後的資料，第 N 頁的成本不會隨 N 增加 (不使用 OFFSET)。
+    // Pageable 只用來限制筆數 (PageRequest.of(0, limit))，排序寫在 JPQL 中以配合 (price, id) 等複合索引。
+    // 游標參數為 null 時代表第一頁。
+    // 依分類篩選時使用另一組查詢 (InCategory)，條件為 p.category = :category 而不是 (:category IS NULL OR ...)，
+    // MySQL 才能使用 (category, price, id) 等複合索引依序讀取，不需要把整個分類讀出來排序 (filesort)。
+
+    @Query("SELECT " + SUMMARY_COLUMNS + " FROM Product p WHERE (:afterId IS NULL OR p.id > :afterId) ORDER BY p.id ASC")
+    List<ProductSummaryDto> findPageOrderByIdAsc(@Param("afterId") String afterId, Pageable pageable);
+
+    @Query("SELECT " + SUMMARY_COLUMNS + " FROM Product p WHERE (:afterId IS NULL OR p.id < :afterId) ORDER BY p.id DESC")
+    List<ProductSummaryDto> findPageOrderByIdDesc(@Param("afterId") String afterId, Pageable pageable);
+
+    @Query("SELECT " + SUMMARY_COLUMNS + " FROM Product p " +
+            "WHERE (:afterPrice IS NULL OR p.price > :afterPrice OR (p.price = :afterPrice AND p.id > :afterId)) " +
+            "ORDER BY p.price ASC, p.id ASC")
+    List<ProductSummaryDto> findPageOrderByPriceAsc(@Param("afterPrice") Integer afterPrice,
+                                                    @Param("afterId") String afterId, Pageable pageable);
+
+    @Query("SELECT " + SUMMARY_COLUMNS + " FROM Product p " +
+            "WHERE (:afterPrice IS NULL OR p.price < :afterPrice OR (p.price = :afterPrice AND p.id < :afterId)) " +
+            "ORDER BY p.price DESC, p.id DESC")
+    List<ProductSummaryDto> findPageOrderByPriceDesc(@Param("afterPrice") Integer afterPrice,
+                                                     @Param("afterId") String afterId, Pageable pageable);
+
+    @Query("SELECT " + SUMMARY_COLUMNS + " FROM Product p " +
+            "WHERE (:afterDate IS NULL OR p.lastModifiedDate > :afterDate " +
+            "OR (p.lastModifiedDate = :afterDate AND p.id > :afterId)) " +
+            "ORDER BY p.lastModifiedDate ASC, p.id ASC")
+    List<ProductSummaryDto> findPageOrderByLastModifiedDateAsc(@Param("afterDate") LocalDateTime afterDate,
+                                                               @Param("afterId") String afterId, Pageable pageable);
+
+    @Query("SELECT " + SUMMARY_COLUMNS + " FROM Product p " +
+            "WHERE (:afterDate IS NULL OR p.lastModifiedDate < :afterDate " +
+            "OR (p.lastModifiedDate = :afterDate AND p.id < :afterId)) " +
+            "ORDER BY p.lastModifiedDate DESC, p.id DESC")
+    List<ProductSummaryDto> findPageOrderByLastModifiedDateDesc(@Param("afterDate") LocalDateTime afterDate,
+                                                                @Param("afterId") String afterId, Pageable pageable);
+
+    @Query("SELECT " + SUMMARY_COLUMNS + " FROM Product p WHERE p.category = :category " +
+            "AND (:afterId IS NULL OR p.id > :afterId) ORDER BY p.id ASC")
+    List<ProductSummaryDto> findPageInCategoryOrderByIdAsc(@Param("category") ProductCategory category,
+                                                           @Param("afterId") String afterId, Pageable pageable);
+
+    @Query("SELECT " + SUMMARY_COLUMNS + " FROM Product p WHERE p.category = :category " +
+            "AND (:afterId IS NULL OR p.id < :afterId) ORDER BY p.id DESC")
+    List<ProductSummaryDto> findPageInCategoryOrderByIdDesc(@Param("category") ProductCategory category,
+                                                            @Param("afterId") String afterId, Pageable pageable);
+
+    @Query("SELECT " + SUMMARY_COLUMNS + " FROM Product p WHERE p.category = :category " +
+            "AND (:afterPrice IS NULL OR p.price > :afterPrice OR (p.price = :afterPrice AND p.id > :afterId)) " +
+            "ORDER BY p.price ASC, p.id ASC")
+    List<ProductSummaryDto> findPageInCategoryOrderByPriceAsc(@Param("category") ProductCategory category,
+                                                              @Param("afterPrice") Integer afterPrice,
+                                                              @Param("afterId") String afterId, Pageable pageable);
+
+    @Query("SELECT " + SUMMARY_COLUMNS + " FROM Product p WHERE p.category = :category " +
+            "AND (:afterPrice IS NULL OR p.price < :afterPrice OR (p.price = :afterPrice AND p.id < :afterId)) " +
+            "ORDER BY p.price DESC, p.id DESC")
+    List<ProductSummaryDto> findPageInCategoryOrderByPriceDesc(@Param("category") ProductCategory category,
+                                                               @Param("afterPrice") Integer afterPrice,
+                                                               @Param("afterId") String afterId, Pageable pageable);
+
+    @Query("SELECT " + SUMMARY_COLUMNS + " FROM Product p WHERE p.category = :category " +
+            "AND (:afterDate IS NULL OR p.lastModifiedDate > :afterDate " +
+            "OR (p.lastModifiedDate = :afterDate AND p.id > :afterId)) " +
+            "ORDER BY p.lastModifiedDate ASC, p.id ASC")
+    List<ProductSummaryDto> findPageInCategoryOrderByLastModifiedDateAsc(@Param("category") ProductCategory category,
+                                                                         @Param("afterDate") LocalDateTime afterDate,
+                                                                         @Param("afterId") String afterId, Pageable pageable);
+
+    @Query("SELECT " + SUMMARY_COLUMNS + " FROM Product p WHERE p.category = :category " +
+            "AND (:afterDate IS NULL OR p.lastModifiedDate < :afterDate " +
+            "OR (p.lastModifiedDate = :afterDate AND p.id < :afterId)) " +
+            "ORDER BY p.lastModifiedDate DESC, p.id DESC")
+    List<ProductSummaryDto> findPageInCategoryOrderByLastModifiedDateDesc(@Param("category") ProductCategory category,
+                                                                          @Param("afterDate") LocalDateTime afterDate,
+                                                                          @Param("afterId") String afterId, Pageable pageable);
+
+    // --- 庫存保留 ---
+    // 以單一條件式 UPDATE 扣庫存，檢查與扣除在同一個語句內完成，不會超賣；返回 0 表示庫存不足或產品不存在
+    @Modifying
+    @Query("UPDATE Product p SET p.stock = p.stock - :quantity WHERE p.id = :id AND p.stock >= :quantity")
+    int decrementStock(@Param("id") String id, @Param("quantity") int quantity);
+
+    @Modifying
+    @Query("UPDATE Product p SET p.stock = p.stock + :quantity WHERE p.id = :id")
+    int incrementStock(@Param("id") String id, @Param("quantity") int quantity);
+
+    // 套用 Redis 庫存模式累積的差額 (保留為負數，歸還為正數)
+    @Modifying
+    @Query("UPDATE Product p SET p.stock = p.stock + :delta WHERE p.id = :id")
+    int adjustStock(@Param("id") String id, @Param("delta") int delta);
+
+    // 只查詢庫存欄位 (保留失敗時用來計算缺少的數量)
+    @Query("SELECT p.stock FROM Product p WHERE p.id = :id")
+    Integer findStockById(@Param("id") String id);
+
+    // 批次查詢庫存 (每列為 [id, stock])，用於 Redis 庫存對帳
+    @Query("SELECT p.id, p.stock FROM Product p WHERE p.id IN :ids")
+    List<Object[]> findStockByIdIn(@Param("ids") Collection<String> ids);
+
+    // --- 重量價格表 ---
+    // 只查詢 id 與一斤價格 (每列為 [id, price])，啟動時建立價格表用
+    @Query("SELECT p.id, p.price FROM Product p")
+    List<Object[]> findAllPrices();
+
+    @Query("SELECT p.price FROM Product p WHERE p.id = :id")
+    Optional<Integer> findPriceById(@Param("id") String id);
+
     // 根據您前端的 `id` 是 `string` 類型，我們這裡的第二個泛型參數也應為 `String`。
     // 如果您將來決定 `id` 是一個自動增長的 `Long` 類型，這裡需要改為 `JpaRepository<Product, Long>`。
 }
\ No newline at end of file
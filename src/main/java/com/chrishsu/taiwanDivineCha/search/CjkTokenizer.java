@@ -0,0 +1,91 @@
+package com.chrishsu.taiwanDivineCha.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 簡單的中日韓 (CJK) bigram 斷詞器。
+ * 中文沒有空白分隔，因此連續的 CJK 字元切成相鄰兩字一組 (例如「碧螺春」→「碧螺」「螺春」)，
+ * 不需要詞典即可讓「碧螺春」、「三峽」等查詢命中；英文與數字則以連續的字母數字為一個詞並轉為小寫。
+ * 全形字元會先以 NFKC 正規化為半形。
+ */
+public final class CjkTokenizer {
+
+    private CjkTokenizer() {}
+
+    /**
+     * 建立索引用的斷詞：CJK 同時產生 bigram 與單字 (unigram)，讓單字查詢 (例如「茶」) 也能命中。
+     */
+    public static List<String> tokenizeForIndex(String text) {
+        return tokenize(text, true);
+    }
+
+    /**
+     * 查詢用的斷詞：CJK 只有一個字時使用單字，否則只使用 bigram，避免單字造成過多雜訊。
+     */
+    public static List<String> tokenizeForQuery(String text) {
+        return tokenize(text, false);
+    }
+
+    private static List<String> tokenize(String text, boolean includeUnigrams) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+
+        StringBuilder word = new StringBuilder();
+        StringBuilder cjkRun = new StringBuilder();
+        int i = 0;
+        while (i < normalized.length()) {
+            int codePoint = normalized.codePointAt(i);
+            if (isCjk(codePoint)) {
+                flushWord(word, tokens);
+                cjkRun.appendCodePoint(codePoint);
+            } else if (Character.isLetterOrDigit(codePoint)) {
+                flushCjkRun(cjkRun, tokens, includeUnigrams);
+                word.appendCodePoint(codePoint);
+            } else {
+                flushWord(word, tokens);
+                flushCjkRun(cjkRun, tokens, includeUnigrams);
+            }
+            i += Character.charCount(codePoint);
+        }
+        flushWord(word, tokens);
+        flushCjkRun(cjkRun, tokens, includeUnigrams);
+        return tokens;
+    }
+
+    private static void flushWord(StringBuilder word, List<String> tokens) {
+        if (word.length() > 0) {
+            tokens.add(word.toString());
+            word.setLength(0);
+        }
+    }
+
+    private static void flushCjkRun(StringBuilder run, List<String> tokens, boolean includeUnigrams) {
+        if (run.length() == 0) {
+            return;
+        }
+        int[] codePoints = run.codePoints().toArray();
+        if (codePoints.length == 1 || includeUnigrams) {
+            for (int codePoint : codePoints) {
+                tokens.add(new String(Character.toChars(codePoint)));
+            }
+        }
+        for (int i = 0; i + 1 < codePoints.length; i++) {
+            tokens.add(new String(codePoints, i, 2));
+        }
+        run.setLength(0);
+    }
+
+    private static boolean isCjk(int codePoint) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+}
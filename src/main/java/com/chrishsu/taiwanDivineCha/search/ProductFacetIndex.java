@@ -0,0 +1,370 @@
+package com.chrishsu.taiwanDivineCha.search;
+
+import com.chrishsu.taiwanDivineCha.constant.ProductCategory;
+import com.chrishsu.taiwanDivineCha.dto.ProductFacetQuery;
+import com.chrishsu.taiwanDivineCha.dto.ProductFacetResult;
+import com.chrishsu.taiwanDivineCha.dto.ProductSummaryDto;
+import com.chrishsu.taiwanDivineCha.event.ProductChangedEvent;
+import com.chrishsu.taiwanDivineCha.mapper.ProductMapper;
+import com.chrishsu.taiwanDivineCha.model.Product;
+import com.chrishsu.taiwanDivineCha.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 產品多條件篩選 (faceted filter) 的記憶體 bitmap 索引。
+ * 每個產品分配一個序號 (ordinal)，每個 facet 值 (分類、產地、重量、價格區間) 對應一個 BitSet，
+ * 組合條件只需對 BitSet 做 AND / OR，不需要動態組 SQL。
+ * 啟動時從資料庫完整建立一次，之後依 ProductChangedEvent 只更新變動的那一筆產品。
+ */
+@Component
+public class ProductFacetIndex {
+
+    public static final String CATEGORY = "category";
+    public static final String ORIGIN = "origin";
+    public static final String WEIGHT = "weight";
+    public static final String PRICE = "price";
+
+    private final ProductRepository productRepository;
+    private final ProductMapper productMapper;
+
+    // 價格區間的分界 (遞增)，例如 500,1000,2000 → 0-499、500-999、1000-1999、2000+
+    private final int[] priceBoundaries;
+    private final List<String> priceBucketLabels;
+
+    private final Map<String, Integer> ordinalById = new HashMap<>();
+    private final List<ProductSummaryDto> documents = new ArrayList<>(); // 依序號存放，已刪除的位置為 null
+    private final Deque<Integer> freeOrdinals = new ArrayDeque<>();
+    private final BitSet live = new BitSet();
+    private final Map<ProductCategory, BitSet> categoryBits = new EnumMap<>(ProductCategory.class);
+    private final Map<String, BitSet> originBits = new HashMap<>();
+    private final Map<String, BitSet> weightBits = new HashMap<>();
+    private final BitSet[] priceBucketBits;
+    // 移除產品時需要知道它原本在哪些 BitSet 中 (只保留 facet 欄位，不持有整個 Product 實體)
+    private final Map<String, FacetValues> indexedValues = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public ProductFacetIndex(ProductRepository productRepository, ProductMapper productMapper,
+                             @Value("${app.search.facet.price-boundaries:500,1000,2000}") int[] priceBoundaries) {
+        this.productRepository = productRepository;
+        this.productMapper = productMapper;
+        this.priceBoundaries = Arrays.stream(priceBoundaries).distinct().sorted().toArray();
+        this.priceBucketLabels = new ArrayList<>(this.priceBoundaries.length + 1);
+        int lower = 0;
+        for (int boundary : this.priceBoundaries) {
+            priceBucketLabels.add(lower + "-" + (boundary - 1));
+            lower = boundary;
+        }
+        priceBucketLabels.add(lower + "+");
+        this.priceBucketBits = new BitSet[priceBucketLabels.size()];
+        for (int i = 0; i < priceBucketBits.length; i++) {
+            priceBucketBits[i] = new BitSet();
+        }
+    }
+
+    // 應用程式啟動完成後建立完整索引 (只在啟動時掃描一次整張表)
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        try {
+            List<Product> products = productRepository.findAll();
+            lock.writeLock().lock();
+            try {
+                ordinalById.clear();
+                documents.clear();
+                freeOrdinals.clear();
+                live.clear();
+                categoryBits.clear();
+                originBits.clear();
+                weightBits.clear();
+                Arrays.stream(priceBucketBits).forEach(BitSet::clear);
+                indexedValues.clear();
+                products.forEach(this::addDocument);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            System.out.println("Product facet index built with " + products.size() + " products.");
+        } catch (RuntimeException e) {
+            System.err.println("Failed to build product facet index: " + e.getMessage());
+        }
+    }
+
+    // 產品寫入後 (包含其他節點轉發的事件) 只更新該筆產品所在的 BitSet
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(ProductChangedEvent.DERIVED_DATA_ORDER)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.getChangeType() == ProductChangedEvent.ChangeType.STOCK_CHANGED) {
+            return; // 索引不包含庫存
+        }
+        Optional<Product> product = event.getChangeType() == ProductChangedEvent.ChangeType.DELETED
+                ? Optional.empty()
+                : productRepository.findById(event.getProductId());
+        lock.writeLock().lock();
+        try {
+            removeDocument(event.getProductId());
+            product.ifPresent(this::addDocument);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 依條件篩選產品並計算各 facet 的數量。
+     * 某個 facet 的數量套用其他 facet 的條件，但不套用自己的條件 (disjunctive facet counts)。
+     * @param query 篩選條件，未提供的 facet 不限制
+     * @param afterId 上一頁最後一筆的 id (keyset 游標)，第一頁為 null
+     * @param size 最多返回的產品筆數
+     * @return 依 id 排序、id 大於 afterId 的前 size 筆產品，符合條件的總筆數與各 facet 值的數量
+     */
+    public ProductFacetResult filter(ProductFacetQuery query, String afterId, int size) {
+        lock.readLock().lock();
+        try {
+            Map<String, BitSet> selections = new LinkedHashMap<>();
+            if (query.getCategory() != null && !query.getCategory().isEmpty()) {
+                selections.put(CATEGORY, selectCategories(query.getCategory()));
+            }
+            if (query.getOrigin() != null && !query.getOrigin().isEmpty()) {
+                selections.put(ORIGIN, selectValues(originBits, query.getOrigin()));
+            }
+            if (query.getWeight() != null && !query.getWeight().isEmpty()) {
+                selections.put(WEIGHT, selectValues(weightBits, query.getWeight()));
+            }
+            if (query.getMinPrice() != null || query.getMaxPrice() != null) {
+                selections.put(PRICE, selectPriceRange(query.getMinPrice(), query.getMaxPrice()));
+            }
+
+            BitSet matches = intersect(selections, null);
+            List<ProductSummaryDto> products = firstAfter(matches, afterId, size);
+
+            Map<String, Map<String, Integer>> facets = new LinkedHashMap<>();
+            BitSet categoryBase = intersect(selections, CATEGORY);
+            Map<String, Integer> categoryCounts = new LinkedHashMap<>();
+            for (ProductCategory category : ProductCategory.values()) {
+                categoryCounts.put(category.getDisplayName(), countAnd(categoryBase, categoryBits.get(category)));
+            }
+            facets.put(CATEGORY, categoryCounts);
+            facets.put(ORIGIN, countValues(intersect(selections, ORIGIN), originBits));
+            facets.put(WEIGHT, countValues(intersect(selections, WEIGHT), weightBits));
+            BitSet priceBase = intersect(selections, PRICE);
+            Map<String, Integer> priceCounts = new LinkedHashMap<>();
+            for (int i = 0; i < priceBucketBits.length; i++) {
+                priceCounts.put(priceBucketLabels.get(i), countAnd(priceBase, priceBucketBits[i]));
+            }
+            facets.put(PRICE, priceCounts);
+
+            return new ProductFacetResult(products, facets, matches.cardinality(), null);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 只保留 id 最小的 size 筆 (大小為 size 的 max-heap)，不需要把全部符合的產品排序後再截斷
+    private List<ProductSummaryDto> firstAfter(BitSet matches, String afterId, int size) {
+        Comparator<ProductSummaryDto> byId = Comparator.comparing(ProductSummaryDto::getId);
+        PriorityQueue<ProductSummaryDto> heap = new PriorityQueue<>(size + 1, byId.reversed());
+        for (int ordinal = matches.nextSetBit(0); ordinal >= 0; ordinal = matches.nextSetBit(ordinal + 1)) {
+            ProductSummaryDto document = documents.get(ordinal);
+            if (afterId != null && document.getId().compareTo(afterId) <= 0) {
+                continue;
+            }
+            heap.offer(document);
+            if (heap.size() > size) {
+                heap.poll();
+            }
+        }
+        List<ProductSummaryDto> products = new ArrayList<>(heap);
+        products.sort(byId);
+        return products;
+    }
+
+    // 現存產品 AND 所有條件 (excludedFacet 除外)
+    private BitSet intersect(Map<String, BitSet> selections, String excludedFacet) {
+        BitSet result = (BitSet) live.clone();
+        selections.forEach((facet, bits) -> {
+            if (!facet.equals(excludedFacet)) {
+                result.and(bits);
+            }
+        });
+        return result;
+    }
+
+    private BitSet selectCategories(List<String> displayNames) {
+        BitSet result = new BitSet();
+        for (String displayName : displayNames) {
+            try {
+                BitSet bits = categoryBits.get(ProductCategory.fromDisplayName(displayName.trim()));
+                if (bits != null) {
+                    result.or(bits);
+                }
+            } catch (IllegalArgumentException e) {
+                // 分類名稱無效時與 getProductsByCategory 一致，視為沒有符合的產品
+            }
+        }
+        return result;
+    }
+
+    private BitSet selectValues(Map<String, BitSet> valueBits, List<String> values) {
+        BitSet result = new BitSet();
+        for (String value : values) {
+            BitSet bits = valueBits.get(normalize(value));
+            if (bits != null) {
+                result.or(bits);
+            }
+        }
+        return result;
+    }
+
+    // 完全落在範圍內的價格區間直接 OR 整個 BitSet，只有頭尾兩個區間需要逐筆比對價格
+    private BitSet selectPriceRange(Integer minPrice, Integer maxPrice) {
+        int min = minPrice != null ? minPrice : 0;
+        int max = maxPrice != null ? maxPrice : Integer.MAX_VALUE;
+        BitSet result = new BitSet();
+        for (int i = 0; i < priceBucketBits.length; i++) {
+            int bucketLower = i == 0 ? 0 : priceBoundaries[i - 1];
+            int bucketUpper = i == priceBoundaries.length ? Integer.MAX_VALUE : priceBoundaries[i] - 1;
+            if (bucketUpper < min || bucketLower > max) {
+                continue;
+            }
+            BitSet bucket = priceBucketBits[i];
+            if (bucketLower >= min && bucketUpper <= max) {
+                result.or(bucket);
+                continue;
+            }
+            for (int ordinal = bucket.nextSetBit(0); ordinal >= 0; ordinal = bucket.nextSetBit(ordinal + 1)) {
+                int price = documents.get(ordinal).getPrice();
+                if (price >= min && price <= max) {
+                    result.set(ordinal);
+                }
+            }
+        }
+        return result;
+    }
+
+    private Map<String, Integer> countValues(BitSet base, Map<String, BitSet> valueBits) {
+        Map<String, Integer> counts = new TreeMap<>();
+        valueBits.forEach((value, bits) -> counts.put(value, countAnd(base, bits)));
+        return counts;
+    }
+
+    private int countAnd(BitSet base, BitSet bits) {
+        if (bits == null) {
+            return 0;
+        }
+        BitSet result = (BitSet) base.clone();
+        result.and(bits);
+        return result.cardinality();
+    }
+
+    // 需在 write lock 內呼叫
+    private void addDocument(Product product) {
+        Integer ordinal = freeOrdinals.poll();
+        if (ordinal == null) {
+            ordinal = documents.size();
+            documents.add(null);
+        }
+        ordinalById.put(product.getId(), ordinal);
+        documents.set(ordinal, productMapper.toSummaryDto(product));
+        FacetValues values = new FacetValues(product.getCategory(), normalize(product.getOrigin()),
+                normalize(product.getWeight()), product.getPrice());
+        indexedValues.put(product.getId(), values);
+        live.set(ordinal);
+
+        if (values.category != null) {
+            categoryBits.computeIfAbsent(values.category, key -> new BitSet()).set(ordinal);
+        }
+        if (values.origin != null) {
+            originBits.computeIfAbsent(values.origin, key -> new BitSet()).set(ordinal);
+        }
+        if (values.weight != null) {
+            weightBits.computeIfAbsent(values.weight, key -> new BitSet()).set(ordinal);
+        }
+        if (values.price != null) {
+            priceBucketBits[priceBucket(values.price)].set(ordinal);
+        }
+    }
+
+    // 需在 write lock 內呼叫
+    private void removeDocument(String productId) {
+        Integer ordinal = ordinalById.remove(productId);
+        if (ordinal == null) {
+            return;
+        }
+        FacetValues values = indexedValues.remove(productId);
+        live.clear(ordinal);
+        if (values.category != null) {
+            clearBit(categoryBits, values.category, ordinal);
+        }
+        if (values.origin != null) {
+            clearBit(originBits, values.origin, ordinal);
+        }
+        if (values.weight != null) {
+            clearBit(weightBits, values.weight, ordinal);
+        }
+        if (values.price != null) {
+            priceBucketBits[priceBucket(values.price)].clear(ordinal);
+        }
+        documents.set(ordinal, null);
+        freeOrdinals.push(ordinal);
+    }
+
+    // 清除後沒有任何產品的值直接移除，避免 facet 數量中出現已不存在的產地或重量
+    private <K> void clearBit(Map<K, BitSet> valueBits, K value, int ordinal) {
+        BitSet bits = valueBits.get(value);
+        if (bits != null) {
+            bits.clear(ordinal);
+            if (bits.isEmpty()) {
+                valueBits.remove(value);
+            }
+        }
+    }
+
+    private int priceBucket(int price) {
+        int bucket = 0;
+        while (bucket < priceBoundaries.length && price >= priceBoundaries[bucket]) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    private static String normalize(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+        return value.trim();
+    }
+
+    // 產品加入索引時的 facet 欄位 (產地、重量已正規化)
+    private static final class FacetValues {
+        private final ProductCategory category;
+        private final String origin;
+        private final String weight;
+        private final Integer price;
+
+        private FacetValues(ProductCategory category, String origin, String weight, Integer price) {
+            this.category = category;
+            this.origin = origin;
+            this.weight = weight;
+            this.price = price;
+        }
+    }
+}
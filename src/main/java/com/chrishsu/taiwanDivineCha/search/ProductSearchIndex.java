@@ -0,0 +1,184 @@
+package com.chrishsu.taiwanDivineCha.search;
+
+import com.chrishsu.taiwanDivineCha.dto.ProductSummaryDto;
+import com.chrishsu.taiwanDivineCha.event.ProductChangedEvent;
+import com.chrishsu.taiwanDivineCha.mapper.ProductMapper;
+import com.chrishsu.taiwanDivineCha.model.Product;
+import com.chrishsu.taiwanDivineCha.repository.ProductRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 產品全文檢索的記憶體倒排索引 (term → 產品 → 加權詞頻)。
+ * 索引名稱、產地、特點、分類與描述，以 CjkTokenizer 斷詞；排序使用 BM25 風格的 TF-IDF，
+ * 並依查詢詞命中比例加權，讓命中全部查詢詞的產品排在前面。
+ * 啟動時從資料庫完整建立一次，之後依 ProductChangedEvent 只重建變動的那一筆產品。
+ */
+@Component
+public class ProductSearchIndex {
+
+    // 各欄位的權重：名稱最重要，其次是產地
+    private static final float NAME_WEIGHT = 3.0f;
+    private static final float ORIGIN_WEIGHT = 2.0f;
+    private static final float FEATURE_WEIGHT = 1.5f;
+    private static final float CATEGORY_WEIGHT = 1.5f;
+    private static final float DESCRIPTION_WEIGHT = 1.0f;
+
+    // BM25 的詞頻飽和參數
+    private static final float K1 = 1.2f;
+
+    private final ProductRepository productRepository;
+    private final ProductMapper productMapper;
+
+    private final Map<String, Map<String, Float>> postings = new HashMap<>();
+    private final Map<String, Set<String>> termsByProduct = new HashMap<>();
+    private final Map<String, ProductSummaryDto> documents = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public ProductSearchIndex(ProductRepository productRepository, ProductMapper productMapper) {
+        this.productRepository = productRepository;
+        this.productMapper = productMapper;
+    }
+
+    // 應用程式啟動完成後建立完整索引 (只在啟動時掃描一次整張表)
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        try {
+            List<Product> products = productRepository.findAll();
+            lock.writeLock().lock();
+            try {
+                postings.clear();
+                termsByProduct.clear();
+                documents.clear();
+                products.forEach(this::addDocument);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            System.out.println("Product search index built with " + products.size() + " products.");
+        } catch (RuntimeException e) {
+            System.err.println("Failed to build product search index: " + e.getMessage());
+        }
+    }
+
+    // 產品寫入後 (包含其他節點轉發的事件) 只重建該筆產品的索引
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(ProductChangedEvent.DERIVED_DATA_ORDER)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.getChangeType() == ProductChangedEvent.ChangeType.STOCK_CHANGED) {
+            return; // 索引不包含庫存
+        }
+        Optional<Product> product = event.getChangeType() == ProductChangedEvent.ChangeType.DELETED
+                ? Optional.empty()
+                : productRepository.findById(event.getProductId());
+        lock.writeLock().lock();
+        try {
+            removeDocument(event.getProductId());
+            product.ifPresent(this::addDocument);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 依相關性排序搜尋產品。
+     * @param query 查詢字串，例如「碧螺春」、「三峽」
+     * @param limit 最多返回筆數
+     * @return 依分數由高到低排序的產品摘要
+     */
+    public List<ProductSummaryDto> search(String query, int limit) {
+        List<String> queryTerms = new ArrayList<>(new LinkedHashSet<>(CjkTokenizer.tokenizeForQuery(query)));
+        if (queryTerms.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            int documentCount = documents.size();
+            Map<String, Float> scores = new HashMap<>();
+            Map<String, Integer> matchedTerms = new HashMap<>();
+            for (String term : queryTerms) {
+                Map<String, Float> termPostings = postings.get(term);
+                if (termPostings == null) {
+                    continue;
+                }
+                double idf = Math.log(1.0 + (double) documentCount / termPostings.size());
+                termPostings.forEach((productId, weightedFrequency) -> {
+                    double termScore = idf * weightedFrequency * (K1 + 1) / (weightedFrequency + K1);
+                    scores.merge(productId, (float) termScore, Float::sum);
+                    matchedTerms.merge(productId, 1, Integer::sum);
+                });
+            }
+
+            // 命中比例加權：命中全部查詢詞的產品分數不變，只命中部分的依比例平方遞減
+            List<Map.Entry<String, Float>> ranked = new ArrayList<>(scores.size());
+            scores.forEach((productId, score) -> {
+                double coverage = (double) matchedTerms.get(productId) / queryTerms.size();
+                ranked.add(Map.entry(productId, (float) (score * coverage * coverage)));
+            });
+            ranked.sort(Map.Entry.<String, Float>comparingByValue(Comparator.reverseOrder())
+                    .thenComparing(Map.Entry.comparingByKey()));
+
+            List<ProductSummaryDto> results = new ArrayList<>(Math.min(limit, ranked.size()));
+            for (int i = 0; i < ranked.size() && results.size() < limit; i++) {
+                results.add(documents.get(ranked.get(i).getKey()));
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 需在 write lock 內呼叫
+    private void addDocument(Product product) {
+        Map<String, Float> weightedFrequencies = new HashMap<>();
+        addField(weightedFrequencies, product.getName(), NAME_WEIGHT);
+        addField(weightedFrequencies, product.getOrigin(), ORIGIN_WEIGHT);
+        if (product.getFeatures() != null) {
+            product.getFeatures().forEach(feature -> addField(weightedFrequencies, feature, FEATURE_WEIGHT));
+        }
+        if (product.getCategory() != null) {
+            addField(weightedFrequencies, product.getCategory().getDisplayName(), CATEGORY_WEIGHT);
+        }
+        addField(weightedFrequencies, product.getDescription(), DESCRIPTION_WEIGHT);
+
+        weightedFrequencies.forEach((term, frequency) ->
+                postings.computeIfAbsent(term, key -> new HashMap<>()).put(product.getId(), frequency));
+        termsByProduct.put(product.getId(), weightedFrequencies.keySet());
+        documents.put(product.getId(), productMapper.toSummaryDto(product));
+    }
+
+    // 需在 write lock 內呼叫
+    private void removeDocument(String productId) {
+        Set<String> terms = termsByProduct.remove(productId);
+        if (terms != null) {
+            for (String term : terms) {
+                Map<String, Float> termPostings = postings.get(term);
+                termPostings.remove(productId);
+                if (termPostings.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+        documents.remove(productId);
+    }
+
+    private void addField(Map<String, Float> weightedFrequencies, String text, float weight) {
+        for (String token : CjkTokenizer.tokenizeForIndex(text)) {
+            weightedFrequencies.merge(token, weight, Float::sum);
+        }
+    }
+}
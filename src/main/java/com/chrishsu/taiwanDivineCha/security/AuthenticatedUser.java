@@ -0,0 +1,73 @@
+package com.chrishsu.taiwanDivineCha.security;
+
+import com.chrishsu.taiwanDivineCha.model.User;
+import lombok.Getter;
+import lombok.ToString;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 已登入使用者的輕量身分 (Controller 以 @AuthenticationPrincipal 取得)。
+ * 由 JWT 中已簽章的 userId / cartId claim 直接建立，每個請求不需要再查詢 users 與 cart 資料表；
+ * 舊版 token 沒有這些 claim 時才查詢使用者，此時 cartId 為 null，由購物車服務在需要時查詢。
+ */
+@Getter
+@ToString
+public class AuthenticatedUser implements UserDetails {
+
+    private static final List<GrantedAuthority> AUTHORITIES = List.of(new SimpleGrantedAuthority("ROLE_USER"));
+
+    private final Integer userId;
+    private final Integer cartId;
+    private final String email;
+
+    public AuthenticatedUser(Integer userId, Integer cartId, String email) {
+        this.userId = userId;
+        this.cartId = cartId;
+        this.email = email;
+    }
+
+    public static AuthenticatedUser from(User user) {
+        return new AuthenticatedUser(user.getUserId(), null, user.getEmail());
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return AUTHORITIES;
+    }
+
+    // 不保存密碼 (只用於已通過 JWT 驗證的請求)
+    @Override
+    public String getPassword() {
+        return null;
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+}
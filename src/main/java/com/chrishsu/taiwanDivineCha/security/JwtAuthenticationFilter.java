@@ -1,6 +1,7 @@
 package com.chrishsu.taiwanDivineCha.security;
 
-import com.chrishsu.taiwanDivineCha.security.JwtUtil;
+import com.chrishsu.taiwanDivineCha.model.User;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -41,16 +42,26 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
 
         jwt = authHeader.substring(7);
-        userEmail = jwtUtil.extractUsername(jwt);
+        // 只解析一次 token (同時驗證簽章與期限)
+        final Claims claims = jwtUtil.parseToken(jwt);
+        userEmail = claims.getSubject();
 
         if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
+            // token 中已有簽章的 userId / cartId 時直接建立身分，不查詢資料庫
+            AuthenticatedUser principal = jwtUtil.toAuthenticatedUser(claims);
+            if (principal == null) {
+                // 舊版 token (沒有 userId claim)：與之前相同，查詢使用者後驗證
+                UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
+                if (userDetails instanceof User user && jwtUtil.isTokenValid(jwt, userDetails)) {
+                    principal = AuthenticatedUser.from(user);
+                }
+            }
 
-            if (jwtUtil.isTokenValid(jwt, userDetails)) {
+            if (principal != null) {
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                        userDetails,
+                        principal,
                         null,
-                        userDetails.getAuthorities()
+                        principal.getAuthorities()
                 );
                 authToken.setDetails(
                         new WebAuthenticationDetailsSource().buildDetails(request)
@@ -1,5 +1,6 @@
 package com.chrishsu.taiwanDivineCha.security;
 
+import com.chrishsu.taiwanDivineCha.model.User;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
@@ -18,6 +19,10 @@ import java.util.function.Function;
 @Component
 public class JwtUtil {
 
+    // 登入時寫入的 claim：使用者 id 與購物車 id (兩者建立後都不會改變)
+    private static final String USER_ID_CLAIM = "uid";
+    private static final String CART_ID_CLAIM = "cid";
+
     @Value("${jwt.secret}")
     private String secret;
 
@@ -37,6 +42,14 @@ public class JwtUtil {
         return generateToken(new HashMap<>(), userDetails);
     }
 
+    // 登入用：把 userId 與 cartId 一起簽進 token，之後的請求不需要查詢使用者與購物車
+    public String generateToken(User user, Integer cartId) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(USER_ID_CLAIM, user.getUserId());
+        claims.put(CART_ID_CLAIM, cartId);
+        return generateToken(claims, user);
+    }
+
     public String generateToken(Map<String, Object> extraClaims, UserDetails userDetails) {
         return buildToken(extraClaims, userDetails, jwtExpiration);
     }
@@ -70,6 +83,24 @@ public class JwtUtil {
 
 
 
+    /**
+     * 驗證簽章與期限並取得所有 claim (簽章不符或已過期時拋出 JwtException)。
+     */
+    public Claims parseToken(String token) {
+        return extractAllClaims(token);
+    }
+
+    /**
+     * 由 token 的 claim 建立輕量身分；舊版 token 沒有 userId claim 時返回 null。
+     */
+    public AuthenticatedUser toAuthenticatedUser(Claims claims) {
+        Integer userId = claims.get(USER_ID_CLAIM, Integer.class);
+        if (userId == null) {
+            return null;
+        }
+        return new AuthenticatedUser(userId, claims.get(CART_ID_CLAIM, Integer.class), claims.getSubject());
+    }
+
     private Claims extractAllClaims(String token) {
         return Jwts
                 .parserBuilder()
@@ -1,15 +1,21 @@
 package com.chrishsu.taiwanDivineCha.service;
 
 import com.chrishsu.taiwanDivineCha.dto.AddToCartRequest;
+import com.chrishsu.taiwanDivineCha.dto.CartBatchRequest;
 import com.chrishsu.taiwanDivineCha.dto.CartDto;
+import com.chrishsu.taiwanDivineCha.dto.CartSummaryDto;
 import com.chrishsu.taiwanDivineCha.dto.UpdateCartItemRequest;
 import com.chrishsu.taiwanDivineCha.model.User;
 import com.chrishsu.taiwanDivineCha.model.Cart;
+import com.chrishsu.taiwanDivineCha.security.AuthenticatedUser;
 
 public interface CartService {
     Cart getOrCreateCart(User user);
-    void addToCart(User user, AddToCartRequest addToCartRequest);
-    void updateCartItem(User user, UpdateCartItemRequest updateCartItemRequest);
-    void removeCartItem(User user, String productId, Integer weight);
-    CartDto getCart(User user);
+    void addToCart(AuthenticatedUser principal, AddToCartRequest addToCartRequest);
+    void updateCartItem(AuthenticatedUser principal, UpdateCartItemRequest updateCartItemRequest);
+    void removeCartItem(AuthenticatedUser principal, String productId, Integer weight);
+    CartDto getCart(AuthenticatedUser principal);
+    CartSummaryDto getCartSummary(AuthenticatedUser principal);
+    CartDto applyBatch(AuthenticatedUser principal, CartBatchRequest cartBatchRequest);
+    CartDto checkout(AuthenticatedUser principal);
 }
\ No newline at end of file
@@ -5,4 +5,6 @@ public interface EmailService {
     void sendResetPasswordEmail(String toEmail, String resetLink);
 
     void sendEmailVerificationAndSetPasswordEmail(String toEmail, String verificationLink);
+
+    void sendOrderConfirmationEmail(String toEmail, String orderNumber, int totalAmount);
 }
@@ -0,0 +1,30 @@
+package com.chrishsu.taiwanDivineCha.service;
+
+import com.chrishsu.taiwanDivineCha.dto.StockReservationResult;
+import com.chrishsu.taiwanDivineCha.model.CartItem;
+
+import java.util.List;
+
+public interface InventoryHoldService {
+
+    /**
+     * 將購物車某一項的保留數量調整為 quantity (0 表示取消保留)，只保留或歸還差額，並重新計算期限。
+     * @return 保留結果；庫存不足時 reserved 為 false，保留維持原狀
+     */
+    StockReservationResult updateHold(Integer cartId, String productId, Integer weight, int quantity);
+
+    /**
+     * 在現有保留上增加 quantity (沒有保留時建立)，用於加入購物車，不需先讀取購物車項目的數量。
+     * @return 保留結果；庫存不足時 reserved 為 false，保留維持原狀
+     */
+    StockReservationResult addToHold(Integer cartId, String productId, Integer weight, int quantity);
+
+    // 延長購物車所有保留的期限
+    void extendHolds(Integer cartId);
+
+    /**
+     * 結帳：確認每個購物車項目都有足夠的保留 (已到期被回收的重新保留)，再把保留轉為銷售 (刪除保留，不歸還庫存)。
+     * @return 庫存不足的項目；非空時不會轉為銷售
+     */
+    List<StockReservationResult> convertToSale(Integer cartId, List<CartItem> cartItems);
+}
@@ -0,0 +1,16 @@
+package com.chrishsu.taiwanDivineCha.service;
+
+import com.chrishsu.taiwanDivineCha.dto.StockReservationResult;
+
+public interface InventoryService {
+
+    /**
+     * 保留 (扣除) 庫存。需在呼叫端的交易內執行，交易回滾時保留一併取消。
+     * @return 保留結果；庫存不足時 reserved 為 false 並帶有缺少的數量
+     * @throws com.chrishsu.taiwanDivineCha.exception.ResourceNotFoundException 產品不存在
+     */
+    StockReservationResult reserve(String productId, int quantity);
+
+    // 歸還先前保留的庫存
+    void release(String productId, int quantity);
+}
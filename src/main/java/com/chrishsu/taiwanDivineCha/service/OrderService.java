@@ -0,0 +1,16 @@
+package com.chrishsu.taiwanDivineCha.service;
+
+import com.chrishsu.taiwanDivineCha.dto.CreateOrderRequest;
+import com.chrishsu.taiwanDivineCha.dto.OrderPageQuery;
+import com.chrishsu.taiwanDivineCha.dto.OrderSearchQuery;
+import com.chrishsu.taiwanDivineCha.dto.OrderSubmissionDto;
+import com.chrishsu.taiwanDivineCha.dto.OrderSummaryDto;
+import com.chrishsu.taiwanDivineCha.security.AuthenticatedUser;
+import com.chrishsu.taiwanDivineCha.util.Page;
+
+public interface OrderService {
+    OrderSubmissionDto submitOrder(AuthenticatedUser principal, CreateOrderRequest createOrderRequest);
+    OrderSubmissionDto getSubmission(AuthenticatedUser principal, String orderNumber);
+    Page<OrderSummaryDto> getOrderHistory(AuthenticatedUser principal, OrderPageQuery query);
+    Page<OrderSummaryDto> searchOrders(AuthenticatedUser principal, OrderSearchQuery query);
+}
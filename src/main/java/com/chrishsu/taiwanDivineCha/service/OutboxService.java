@@ -0,0 +1,11 @@
+package com.chrishsu.taiwanDivineCha.service;
+
+import com.chrishsu.taiwanDivineCha.constant.OutboxEventType;
+
+import java.util.Map;
+
+public interface OutboxService {
+
+    // 在呼叫端的交易內寫入事件 (必須已有交易)，交易提交後才會被派送，回滾時事件一併取消
+    void enqueue(OutboxEventType eventType, String aggregateId, Map<String, Object> payload);
+}
@@ -1,12 +1,18 @@
 package com.chrishsu.taiwanDivineCha.service;
 
+import com.chrishsu.taiwanDivineCha.dto.ProductBatchResult;
 import com.chrishsu.taiwanDivineCha.dto.ProductDto;
+import com.chrishsu.taiwanDivineCha.dto.ProductFacetQuery;
+import com.chrishsu.taiwanDivineCha.dto.ProductFacetResult;
+import com.chrishsu.taiwanDivineCha.dto.ProductPageQuery;
+import com.chrishsu.taiwanDivineCha.dto.ProductSummaryDto;
+import com.chrishsu.taiwanDivineCha.util.Page;
 
 import java.util.List;
 
 public interface ProductService {
 
-    List<ProductDto> getAllProducts();
+    List<ProductSummaryDto> getAllProducts();
 
     ProductDto getProductById(String id);
 
@@ -16,5 +22,13 @@ public interface ProductService {
 
     void deleteProduct(String id);
 
-    List<ProductDto> getProductsByCategory(String categoryDisplayName);
+    List<ProductSummaryDto> getProductsByCategory(String categoryDisplayName);
+
+    Page<ProductSummaryDto> getProductPage(ProductPageQuery query);
+
+    List<ProductSummaryDto> searchProducts(String keyword, int limit);
+
+    ProductFacetResult filterProducts(ProductFacetQuery query);
+
+    ProductBatchResult getProductsByIds(List<String> ids);
 }
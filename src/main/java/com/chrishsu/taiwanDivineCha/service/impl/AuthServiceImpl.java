@@ -2,7 +2,8 @@ package com.chrishsu.taiwanDivineCha.service.impl;
 
 import com.chrishsu.taiwanDivineCha.model.User;
 import com.chrishsu.taiwanDivineCha.service.AuthService; // 引入介面
-import com.chrishsu.taiwanDivineCha.service.EmailService;
+import com.chrishsu.taiwanDivineCha.service.OutboxService;
+import com.chrishsu.taiwanDivineCha.constant.OutboxEventType;
 import com.chrishsu.taiwanDivineCha.repository.UserRepository;
 import com.chrishsu.taiwanDivineCha.dto.UserDto; // 用於返回用戶信息
 import com.chrishsu.taiwanDivineCha.dto.LoginRequest;
@@ -40,7 +41,7 @@ import javax.imageio.ImageIO; // 確保導入這個
 public class AuthServiceImpl implements AuthService {
 
   private final UserRepository userRepository;
-  private final EmailService emailService; // 假設您有 EmailService
+  private final OutboxService outboxService; // 郵件改為寫入 outbox，交易提交後才寄出
   private final PasswordEncoder passwordEncoder; // 假設您有配置 PasswordEncoder
   private final StringRedisTemplate redisTemplate; // 注入 RedisTemplate
 
@@ -55,10 +56,10 @@ public class AuthServiceImpl implements AuthService {
   private static final String CAPTCHA_CHARS = "ABCDEFGHJKLMNPQRSTUVWXYZ23456789";
   private static final long CAPTCHA_EXPIRATION_MINUTES = 5; // 驗證碼有效期 5 分鐘
 
-  public AuthServiceImpl(UserRepository userRepository, EmailService emailService,
+  public AuthServiceImpl(UserRepository userRepository, OutboxService outboxService,
                          PasswordEncoder passwordEncoder, StringRedisTemplate redisTemplate) { // 注入 RedisTemplate
     this.userRepository = userRepository;
-    this.emailService = emailService;
+    this.outboxService = outboxService;
     this.passwordEncoder = passwordEncoder;
     this.redisTemplate = redisTemplate; // 初始化 RedisTemplate
   }
@@ -89,9 +90,10 @@ public class AuthServiceImpl implements AuthService {
 
     User savedUser = userRepository.save(newUser); // 保存包含驗證 token 的用戶信息
 
-    // --- 核心修改：發送 Email 驗證郵件 ---
+    // --- 核心修改：發送 Email 驗證郵件 (與用戶資料同一交易寫入 outbox，提交後由排程寄出) ---
     String verificationLink = frontendResetPasswordUrl + emailVerificationToken;
-    emailService.sendEmailVerificationAndSetPasswordEmail(savedUser.getEmail(), verificationLink); // 您需要在 EmailService 中實現此方法
+    outboxService.enqueue(OutboxEventType.USER_REGISTERED, String.valueOf(savedUser.getUserId()),
+            Map.of("email", savedUser.getEmail(), "link", verificationLink));
 
     return new UserDto(savedUser.getUserId(), savedUser.getEmail());
   }
@@ -163,7 +165,8 @@ public class AuthServiceImpl implements AuthService {
 
     // 構建重設連結 (這個連結現在用於「忘記密碼」和「首次設定密碼」)
     String resetLink = frontendResetPasswordUrl + token;
-    emailService.sendResetPasswordEmail(user.getEmail(), resetLink);
+    outboxService.enqueue(OutboxEventType.PASSWORD_RESET_REQUESTED, String.valueOf(user.getUserId()),
+            Map.of("email", user.getEmail(), "link", resetLink));
 
   }
 
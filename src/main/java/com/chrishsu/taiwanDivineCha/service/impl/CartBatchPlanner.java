@@ -0,0 +1,110 @@
+package com.chrishsu.taiwanDivineCha.service.impl;
+
+import com.chrishsu.taiwanDivineCha.dto.CartBatchRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * 購物車批次操作的共用計算 (MySQL 與 Redis 購物車實作共用)。
+ * 購物車項目以「重量:產品 id」為 key、數量為值；先在記憶體中算出所有操作後的結果，
+ * 再以一次查詢取得的庫存檢查全部受影響的產品，驗證通過後才由呼叫端寫入。
+ */
+final class CartBatchPlanner {
+
+    private CartBatchPlanner() {
+    }
+
+    static String itemKey(String productId, Integer weight) {
+        return weight + ":" + productId;
+    }
+
+    static String productIdOf(String key) {
+        return key.substring(key.indexOf(':') + 1);
+    }
+
+    static int weightOf(String key) {
+        return Integer.parseInt(key.substring(0, key.indexOf(':')));
+    }
+
+    /**
+     * 依序套用操作，返回套用後的數量 (數量為 0 表示刪除)；操作不合法時拋出 400，修改不存在的項目時拋出 404。
+     */
+    static Map<String, Integer> apply(Map<String, Integer> current, List<CartBatchRequest.Operation> operations) {
+        Map<String, Integer> target = new LinkedHashMap<>(current);
+        for (CartBatchRequest.Operation operation : operations) {
+            String key = itemKey(operation.getProductId(), operation.getWeight());
+            int quantity = target.getOrDefault(key, 0);
+            switch (operation.getType()) {
+                case ADD -> {
+                    if (operation.getQuantity() == null || operation.getQuantity() < 1) {
+                        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "ADD requires a quantity of at least 1");
+                    }
+                    target.put(key, quantity + operation.getQuantity());
+                }
+                case UPDATE -> {
+                    if (operation.getQuantity() == null) {
+                        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "UPDATE requires a quantity");
+                    }
+                    if (quantity == 0) {
+                        throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Cart item not found: " + operation.getProductId());
+                    }
+                    target.put(key, operation.getQuantity());
+                }
+                case REMOVE -> {
+                    if (quantity > 0) {
+                        target.put(key, 0);
+                    }
+                }
+            }
+        }
+        return target;
+    }
+
+    // 數量有變動的項目 (依 key 排序，固定保留與更新產品列的順序以避免死結)
+    static Map<String, Integer> changes(Map<String, Integer> current, Map<String, Integer> target) {
+        Map<String, Integer> changed = new TreeMap<>();
+        target.forEach((key, quantity) -> {
+            if (!Objects.equals(current.getOrDefault(key, 0), quantity)) {
+                changed.put(key, quantity);
+            }
+        });
+        return changed;
+    }
+
+    /**
+     * 以一次查詢取得的庫存檢查所有需要增加保留的產品 (同一產品不同重量的增加量會合併計算)，
+     * 一次列出所有不足的產品；產品不存在時拋出 404。實際保留時仍以條件式扣除為準。
+     * @param stockByProductId 受影響產品目前的庫存 (已扣除保留)
+     */
+    static void checkStock(Map<String, Integer> current, Map<String, Integer> changed, Map<String, Integer> stockByProductId) {
+        Map<String, Integer> required = new TreeMap<>();
+        changed.forEach((key, quantity) -> {
+            String productId = productIdOf(key);
+            if (!stockByProductId.containsKey(productId)) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found: " + productId);
+            }
+            int delta = quantity - current.getOrDefault(key, 0);
+            if (delta > 0) {
+                required.merge(productId, delta, Integer::sum);
+            }
+        });
+        StringBuilder shortfalls = new StringBuilder();
+        required.forEach((productId, quantity) -> {
+            int available = stockByProductId.get(productId);
+            if (quantity > available) {
+                shortfalls.append(shortfalls.length() == 0 ? "Not enough stock for " : "; ")
+                        .append("product ").append(productId).append(": available ").append(available)
+                        .append(", short by ").append(quantity - available);
+            }
+        });
+        if (shortfalls.length() > 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, shortfalls.toString());
+        }
+    }
+}
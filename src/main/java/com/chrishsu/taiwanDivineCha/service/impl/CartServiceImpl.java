@@ -1,28 +1,43 @@
 package com.chrishsu.taiwanDivineCha.service.impl;
 
 import com.chrishsu.taiwanDivineCha.dto.AddToCartRequest;
+import com.chrishsu.taiwanDivineCha.dto.CartBatchRequest;
 import com.chrishsu.taiwanDivineCha.dto.CartDto;
 import com.chrishsu.taiwanDivineCha.dto.CartItemDto;
+import com.chrishsu.taiwanDivineCha.dto.CartSummaryDto;
+import com.chrishsu.taiwanDivineCha.dto.StockReservationResult;
 import com.chrishsu.taiwanDivineCha.dto.UpdateCartItemRequest;
+import com.chrishsu.taiwanDivineCha.event.ProductChangedEvent;
 import com.chrishsu.taiwanDivineCha.model.Cart;
 import com.chrishsu.taiwanDivineCha.model.CartItem;
 import com.chrishsu.taiwanDivineCha.model.Product;
 import com.chrishsu.taiwanDivineCha.model.User;
+import com.chrishsu.taiwanDivineCha.pricing.WeightPricingEngine;
 import com.chrishsu.taiwanDivineCha.repository.CartItemRepository;
 import com.chrishsu.taiwanDivineCha.repository.CartRepository;
 import com.chrishsu.taiwanDivineCha.repository.ProductRepository;
+import com.chrishsu.taiwanDivineCha.repository.UserRepository;
+import com.chrishsu.taiwanDivineCha.security.AuthenticatedUser;
 import com.chrishsu.taiwanDivineCha.service.CartService;
+import com.chrishsu.taiwanDivineCha.service.InventoryHoldService;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
+// 預設的購物車實作 (直接存放於 MySQL)；app.cart.store=redis 時改用 RedisCartServiceImpl
 @Service
+@ConditionalOnProperty(name = "app.cart.store", havingValue = "database", matchIfMissing = true)
 public class CartServiceImpl implements CartService {
 
     @Autowired
@@ -34,6 +49,15 @@ public class CartServiceImpl implements CartService {
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private InventoryHoldService inventoryHoldService;
+
+    @Autowired
+    private WeightPricingEngine weightPricingEngine;
+
     @Override
     @Transactional
     public Cart getOrCreateCart(User user) {
@@ -47,89 +71,233 @@ public class CartServiceImpl implements CartService {
 
     @Override
     @Transactional
-    public void addToCart(User user, AddToCartRequest addToCartRequest) {
-        Cart cart = getOrCreateCart(user);
-        Product product = productRepository.findById(addToCartRequest.getProductId())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found"));
-
-        if (product.getStock() < addToCartRequest.getQuantity()) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Not enough stock");
-        }
+    public void addToCart(AuthenticatedUser principal, AddToCartRequest addToCartRequest) {
+        Integer cartId = cartIdOf(principal);
+        // 保留新增的數量 (產品不存在時返回 404)，並延長整個購物車的保留期限
+        requireReserved(inventoryHoldService.addToHold(cartId, addToCartRequest.getProductId(),
+                addToCartRequest.getWeight(), addToCartRequest.getQuantity()));
+        inventoryHoldService.extendHolds(cartId);
 
-        Optional<CartItem> existingCartItem = cartItemRepository.findByCartAndProductAndWeight(cart, product, addToCartRequest.getWeight());
-
-        if (existingCartItem.isPresent()) {
-            CartItem cartItem = existingCartItem.get();
-            int newQuantity = cartItem.getQuantity() + addToCartRequest.getQuantity();
-            if (product.getStock() < newQuantity) {
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Not enough stock for updated quantity");
-            }
-            cartItem.setQuantity(newQuantity);
-            cartItemRepository.save(cartItem);
-        } else {
-            CartItem newCartItem = new CartItem();
-            newCartItem.setCart(cart);
-            newCartItem.setProduct(product);
-            newCartItem.setQuantity(addToCartRequest.getQuantity());
-            newCartItem.setWeight(addToCartRequest.getWeight());
-            cartItemRepository.save(newCartItem);
-        }
+        // 新增或累加數量只需一個 INSERT ... ON DUPLICATE KEY UPDATE，並發的重複點擊也不會產生重複的項目
+        cartItemRepository.upsertQuantity(cartId, addToCartRequest.getProductId(),
+                addToCartRequest.getWeight(), addToCartRequest.getQuantity());
+        adjustTotals(cartId, addToCartRequest.getProductId(), addToCartRequest.getWeight(), addToCartRequest.getQuantity());
     }
 
     @Override
     @Transactional
-    public void updateCartItem(User user, UpdateCartItemRequest updateCartItemRequest) {
-        Cart cart = getOrCreateCart(user);
-        Product product = productRepository.findById(updateCartItemRequest.getProductId())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found"));
+    public void updateCartItem(AuthenticatedUser principal, UpdateCartItemRequest updateCartItemRequest) {
+        Integer cartId = cartIdOf(principal);
 
-        Optional<CartItem> existingCartItem = cartItemRepository.findByCartAndProductAndWeight(cart, product, updateCartItemRequest.getWeight());
+        Optional<CartItem> existingCartItem = cartItemRepository.findForUpdate(cartId, updateCartItemRequest.getProductId(),
+                updateCartItemRequest.getWeight());
 
         if (existingCartItem.isEmpty()) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Cart item not found");
         }
 
         CartItem cartItem = existingCartItem.get();
+        int oldQuantity = cartItem.getQuantity();
         int newQuantity = updateCartItemRequest.getQuantity();
+        // 只保留或歸還與目前保留數量的差額
+        holdStock(cartId, updateCartItemRequest.getProductId(), updateCartItemRequest.getWeight(), newQuantity);
 
         if (newQuantity == 0) {
             cartItemRepository.delete(cartItem);
         } else {
-            if (product.getStock() < newQuantity) {
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Not enough stock for updated quantity");
-            }
             cartItem.setQuantity(newQuantity);
             cartItemRepository.save(cartItem);
         }
+        adjustTotals(cartId, updateCartItemRequest.getProductId(), updateCartItemRequest.getWeight(), newQuantity - oldQuantity);
     }
 
     @Override
     @Transactional
-    public void removeCartItem(User user, String productId, Integer weight) {
-        Cart cart = getOrCreateCart(user);
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found"));
+    public void removeCartItem(AuthenticatedUser principal, String productId, Integer weight) {
+        Integer cartId = cartIdOf(principal);
+
+        // 刪除購物車項目時歸還其保留的庫存
+        cartItemRepository.findForUpdate(cartId, productId, weight).ifPresent(cartItem -> {
+            cartItemRepository.delete(cartItem);
+            inventoryHoldService.updateHold(cartId, productId, weight, 0);
+            adjustTotals(cartId, productId, weight, -cartItem.getQuantity());
+        });
+    }
 
-        cartItemRepository.deleteByCartAndProductAndWeight(cart, product, weight);
+    @Override
+    @Transactional
+    public CartDto checkout(AuthenticatedUser principal) {
+        Cart cart = loadCartWithItems(principal);
+        if (cart.getCartItems().isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cart is empty");
+        }
+        // 清空前先以目前售價建立快照，供訂單寫入
+        CartDto snapshot = toCartDto(cart, principal.getUserId());
+        // 保留轉為銷售；已到期被回收的項目會重新保留，庫存不足時整筆結帳失敗
+        List<StockReservationResult> shortfalls = inventoryHoldService.convertToSale(cart.getCartId(), cart.getCartItems());
+        if (!shortfalls.isEmpty()) {
+            StockReservationResult shortfall = shortfalls.get(0);
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Not enough stock for product " + shortfall.getProductId()
+                    + ": available " + shortfall.getAvailable() + ", short by " + shortfall.getShortfall());
+        }
+        cart.getCartItems().clear();
+        cart.setItemCount(0);
+        cart.setTotalAmount(0);
+        cartRepository.save(cart);
+        return snapshot;
     }
 
+    /**
+     * 批次套用新增 / 修改 / 刪除：先在記憶體中算出結果，以一次查詢載入所有受影響的產品並檢查庫存，
+     * 再於同一個交易內調整保留與購物車項目 (項目的 UPDATE / DELETE 由 Hibernate 以 JDBC batch 送出)，
+     * 最後直接以已載入的購物車組出結果，不需再查詢一次。
+     */
     @Override
-    public CartDto getCart(User user) {
-        Cart cart = getOrCreateCart(user);
+    @Transactional
+    public CartDto applyBatch(AuthenticatedUser principal, CartBatchRequest cartBatchRequest) {
+        Cart cart = loadCartWithItems(principal);
+        Map<String, CartItem> existingItems = new HashMap<>();
+        Map<String, Integer> current = new LinkedHashMap<>();
+        cart.getCartItems().forEach(item -> {
+            String key = CartBatchPlanner.itemKey(item.getProduct().getId(), item.getWeight());
+            existingItems.put(key, item);
+            current.put(key, item.getQuantity());
+        });
+
+        Map<String, Integer> changed = CartBatchPlanner.changes(current, CartBatchPlanner.apply(current, cartBatchRequest.getOperations()));
+        if (changed.isEmpty()) {
+            return toCartDto(cart, principal.getUserId());
+        }
+
+        Map<String, Product> products = new HashMap<>();
+        productRepository.findAllById(changed.keySet().stream().map(CartBatchPlanner::productIdOf).distinct().toList())
+                .forEach(product -> products.put(product.getId(), product));
+        Map<String, Integer> stockByProductId = new HashMap<>();
+        products.forEach((productId, product) -> stockByProductId.put(productId, product.getStock()));
+        CartBatchPlanner.checkStock(current, changed, stockByProductId);
+
+        changed.forEach((key, quantity) -> {
+            String productId = CartBatchPlanner.productIdOf(key);
+            int weight = CartBatchPlanner.weightOf(key);
+            requireReserved(inventoryHoldService.updateHold(cart.getCartId(), productId, weight, quantity));
+
+            CartItem cartItem = existingItems.get(key);
+            if (quantity == 0) {
+                cart.getCartItems().remove(cartItem);
+            } else if (cartItem != null) {
+                cartItem.setQuantity(quantity);
+            } else {
+                cartItem = new CartItem();
+                cartItem.setCart(cart);
+                cartItem.setProduct(products.get(productId));
+                cartItem.setWeight(weight);
+                cartItem.setQuantity(quantity);
+                cart.getCartItems().add(cartItem);
+            }
+        });
+        inventoryHoldService.extendHolds(cart.getCartId());
+        CartDto cartDto = toCartDto(cartRepository.save(cart), principal.getUserId());
+        cartRepository.setTotals(cart.getCartId(), cartDto.getItemCount(), cartDto.getTotalAmount());
+        return cartDto;
+    }
+
+    private void holdStock(Integer cartId, String productId, Integer weight, int quantity) {
+        requireReserved(inventoryHoldService.updateHold(cartId, productId, weight, quantity));
+        inventoryHoldService.extendHolds(cartId);
+    }
+
+    private void requireReserved(StockReservationResult reservation) {
+        if (!reservation.isReserved()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Not enough stock: requested " + reservation.getRequested()
+                    + ", available " + reservation.getAvailable() + ", short by " + reservation.getShortfall());
+        }
+    }
+
+    @Override
+    @Transactional
+    public CartDto getCart(AuthenticatedUser principal) {
+        // 購物車、項目與產品一次載入
+        Cart cart = loadCartWithItems(principal);
+        CartDto cartDto = toCartDto(cart, principal.getUserId());
+        // 合計已失效時順便以這次算出的結果補上
+        if (cart.getItemCount() == null || cart.getTotalAmount() == null) {
+            cartRepository.setTotals(cart.getCartId(), cartDto.getItemCount(), cartDto.getTotalAmount());
+        }
+        return cartDto;
+    }
+
+    /**
+     * 購物車摘要：直接讀取 cart 上反正規化的件數與總金額，不載入項目與產品。
+     * 合計已失效 (NULL) 時以一次只取計價欄位的查詢重新計算並寫回。
+     */
+    @Override
+    @Transactional
+    public CartSummaryDto getCartSummary(AuthenticatedUser principal) {
+        Cart cart = cartRepository.findById(cartIdOf(principal))
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Cart not found"));
+        Integer itemCount = cart.getItemCount();
+        Integer totalAmount = cart.getTotalAmount();
+        if (itemCount == null || totalAmount == null) {
+            itemCount = 0;
+            totalAmount = 0;
+            for (Object[] row : cartItemRepository.findPricingRowsByCartId(cart.getCartId())) {
+                int weight = (Integer) row[2];
+                int quantity = (Integer) row[3];
+                itemCount += quantity;
+                totalAmount += weightPricingEngine.priceOf((String) row[0], (Integer) row[1], weight) * quantity;
+            }
+            cartRepository.setTotals(cart.getCartId(), itemCount, totalAmount);
+        }
+        return new CartSummaryDto(cart.getCartId(), itemCount, totalAmount);
+    }
+
+    // 產品改價或下架後 (交易提交後)，讓含有該產品的購物車合計失效；其他節點轉發的事件已由原節點處理
+    // 庫存變動不影響合計，不需失效
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (!event.isRemote() && event.getChangeType() != ProductChangedEvent.ChangeType.CREATED
+                && event.getChangeType() != ProductChangedEvent.ChangeType.STOCK_CHANGED) {
+            cartRepository.invalidateTotalsByProductId(event.getProductId());
+        }
+    }
+
+    // token 中已有 cartId 時直接使用，不查詢 cart；舊版 token 才依使用者查詢 (必要時建立) 購物車
+    private Integer cartIdOf(AuthenticatedUser principal) {
+        if (principal.getCartId() != null) {
+            return principal.getCartId();
+        }
+        return getOrCreateCart(userRepository.getReferenceById(principal.getUserId())).getCartId();
+    }
+
+    private Cart loadCartWithItems(AuthenticatedUser principal) {
+        return cartRepository.findWithItemsByCartId(cartIdOf(principal))
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Cart not found"));
+    }
+
+    // 以目前的售價把數量差額累加到購物車合計 (在資料庫中累加，不需先讀取合計)
+    private void adjustTotals(Integer cartId, String productId, Integer weight, int quantityDelta) {
+        if (quantityDelta == 0) {
+            return;
+        }
+        Optional<Integer> basePrice = productRepository.findPriceById(productId);
+        if (basePrice.isEmpty()) {
+            cartRepository.setTotals(cartId, null, null);
+            return;
+        }
+        int price = weightPricingEngine.priceOf(productId, basePrice.get(), weight);
+        cartRepository.adjustTotals(cartId, quantityDelta, price * quantityDelta);
+    }
+
+    private CartDto toCartDto(Cart cart, Integer userId) {
         List<CartItem> cartItems = cart.getCartItems();
 
         List<CartItemDto> cartItemDtos = cartItems.stream().map(cartItem -> {
             Product product = cartItem.getProduct();
             CartItemDto dto = new CartItemDto();
 
-            double priceMultiplier = 1.0;
-            if (cartItem.getWeight() == 300) { // 半斤
-                priceMultiplier = 0.5;
-            } else if (cartItem.getWeight() == 150) { // 四兩
-                priceMultiplier = 0.25;
-            }
-
-            int adjustedPrice = (int) Math.round(product.getPrice() * priceMultiplier);
+            // 依重量的售價從預先計算的價格表讀取
+            int adjustedPrice = weightPricingEngine.priceOf(product.getId(), product.getPrice(), cartItem.getWeight());
 
             dto.setProductId(product.getId());
             dto.setProductName(product.getName());
@@ -145,8 +313,9 @@ public class CartServiceImpl implements CartService {
 
         CartDto cartDto = new CartDto();
         cartDto.setCartId(cart.getCartId());
-        cartDto.setUserId(user.getUserId());
+        cartDto.setUserId(userId);
         cartDto.setCartItems(cartItemDtos);
+        cartDto.setItemCount(cartItemDtos.stream().mapToInt(CartItemDto::getQuantity).sum());
         cartDto.setTotalAmount(cartItemDtos.stream().mapToInt(CartItemDto::getSubtotal).sum());
 
         return cartDto;
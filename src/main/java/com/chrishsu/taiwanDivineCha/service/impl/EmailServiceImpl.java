@@ -101,4 +101,41 @@ public class EmailServiceImpl implements EmailService {
       throw new RuntimeException("郵件服務器暫時不可用", e);
     }
   }
-}
\ No newline at end of file
+
+  /**
+   * 發送訂單確認郵件。
+   *
+   * @param toEmail 接收者的電子郵件地址
+   * @param orderNumber 訂單編號
+   * @param totalAmount 訂單總金額
+   */
+  @Override
+  public void sendOrderConfirmationEmail(String toEmail, String orderNumber, int totalAmount) {
+    MimeMessage message = mailSender.createMimeMessage();
+    try {
+      MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+      helper.setFrom(senderEmail); // 設定發件人
+      helper.setTo(toEmail);
+      helper.setSubject("好神茶廠：訂單 " + orderNumber + " 已成立"); // 郵件主題
+
+      String htmlContent = "<html><body>"
+              + "<p>您好，</p>"
+              + "<p>感謝您在好神茶廠訂購！您的訂單已成立。</p>"
+              + "<p>訂單編號：" + orderNumber + "</p>"
+              + "<p>訂單金額：NT$ " + totalAmount + "</p>"
+              + "<p>您可以登入會員後查詢訂單的處理進度。</p>"
+              + "<p>好神茶廠 客服團隊</p>"
+              + "</body></html>";
+      helper.setText(htmlContent, true); // true 表示內容是 HTML
+
+      mailSender.send(message);
+      System.out.println("訂單確認郵件已發送至: " + toEmail);
+    } catch (MessagingException e) {
+      System.err.println("發送訂單確認郵件時發生錯誤: " + e.getMessage());
+      throw new RuntimeException("無法發送訂單確認郵件", e);
+    } catch (MailException e) {
+      System.err.println("郵件服務器錯誤: " + e.getMessage());
+      throw new RuntimeException("郵件服務器暫時不可用", e);
+    }
+  }
+}
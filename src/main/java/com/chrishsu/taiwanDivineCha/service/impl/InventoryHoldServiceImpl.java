@@ -0,0 +1,168 @@
+package com.chrishsu.taiwanDivineCha.service.impl;
+
+import com.chrishsu.taiwanDivineCha.dto.StockReservationResult;
+import com.chrishsu.taiwanDivineCha.model.CartItem;
+import com.chrishsu.taiwanDivineCha.model.InventoryHold;
+import com.chrishsu.taiwanDivineCha.repository.InventoryHoldRepository;
+import com.chrishsu.taiwanDivineCha.service.InventoryHoldService;
+import com.chrishsu.taiwanDivineCha.service.InventoryService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 有期限的庫存保留：加入購物車時扣除庫存並建立保留，購物車有操作時延長期限，結帳時轉為銷售。
+ * 到期的保留由排程依 expires_at 索引分批回收 (每批一個交易)，不需要為每筆保留建立計時器，也不需掃描整張表。
+ * 保留期限到了但尚未被回收前，庫存仍視為被保留，延長或結帳都可以直接沿用。
+ */
+@Service
+public class InventoryHoldServiceImpl implements InventoryHoldService {
+
+    private final InventoryHoldRepository inventoryHoldRepository;
+    private final InventoryService inventoryService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.inventory.hold.ttl-minutes:30}")
+    private long holdTtlMinutes;
+
+    @Value("${app.inventory.hold.sweep-batch-size:500}")
+    private int sweepBatchSize;
+
+    public InventoryHoldServiceImpl(InventoryHoldRepository inventoryHoldRepository, InventoryService inventoryService,
+                                    PlatformTransactionManager transactionManager) {
+        this.inventoryHoldRepository = inventoryHoldRepository;
+        this.inventoryService = inventoryService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    @Transactional
+    public StockReservationResult updateHold(Integer cartId, String productId, Integer weight, int quantity) {
+        InventoryHold hold = lockHold(cartId, productId, weight);
+        int delta = quantity - hold.getQuantity();
+
+        if (delta > 0) {
+            StockReservationResult reservation = inventoryService.reserve(productId, delta);
+            if (!reservation.isReserved()) {
+                deleteIfEmpty(hold);
+                return reservation;
+            }
+        } else if (delta < 0) {
+            inventoryService.release(productId, -delta);
+        }
+
+        if (quantity == 0) {
+            inventoryHoldRepository.delete(hold);
+            return StockReservationResult.success(productId, 0);
+        }
+        hold.setQuantity(quantity);
+        hold.setExpiresAt(nextExpiry());
+        inventoryHoldRepository.save(hold);
+        return StockReservationResult.success(productId, quantity);
+    }
+
+    @Override
+    @Transactional
+    public StockReservationResult addToHold(Integer cartId, String productId, Integer weight, int quantity) {
+        InventoryHold hold = lockHold(cartId, productId, weight);
+        StockReservationResult reservation = inventoryService.reserve(productId, quantity);
+        if (!reservation.isReserved()) {
+            deleteIfEmpty(hold);
+            return reservation;
+        }
+        hold.setQuantity(hold.getQuantity() + quantity);
+        hold.setExpiresAt(nextExpiry());
+        inventoryHoldRepository.save(hold);
+        return reservation;
+    }
+
+    // 先以 INSERT ... ON DUPLICATE KEY UPDATE 確保保留存在並鎖定，再讀取該筆保留。
+    // 直接 SELECT ... FOR UPDATE 不存在的保留會取得 gap lock，不同購物車同時新增保留時可能互相等待而死結；
+    // 鎖定順序維持「保留 → 產品庫存」
+    private InventoryHold lockHold(Integer cartId, String productId, Integer weight) {
+        inventoryHoldRepository.insertIfAbsent(cartId, productId, weight, nextExpiry());
+        return inventoryHoldRepository.findForUpdate(cartId, productId, weight)
+                .orElseThrow(() -> new IllegalStateException("Inventory hold missing after insert: cart " + cartId
+                        + ", product " + productId + ", weight " + weight));
+    }
+
+    // 保留失敗時，lockHold 剛新增的空保留不需要留下
+    private void deleteIfEmpty(InventoryHold hold) {
+        if (hold.getQuantity() == 0) {
+            inventoryHoldRepository.delete(hold);
+        }
+    }
+
+    @Override
+    @Transactional
+    public void extendHolds(Integer cartId) {
+        inventoryHoldRepository.extendByCartId(cartId, nextExpiry());
+    }
+
+    @Override
+    @Transactional
+    public List<StockReservationResult> convertToSale(Integer cartId, List<CartItem> cartItems) {
+        // 依 (產品, 重量) 排序後再逐一保留：到期的保留重新扣庫存時會鎖定產品列，
+        // 兩個含有相同產品的結帳若以不同順序鎖定可能死結 (與回收排程、CartBatchPlanner 的順序一致)
+        List<CartItem> orderedItems = new ArrayList<>(cartItems);
+        orderedItems.sort(Comparator.comparing((CartItem item) -> item.getProduct().getId())
+                .thenComparing(CartItem::getWeight));
+        List<StockReservationResult> shortfalls = new ArrayList<>();
+        for (CartItem cartItem : orderedItems) {
+            StockReservationResult reservation = updateHold(cartId, cartItem.getProduct().getId(),
+                    cartItem.getWeight(), cartItem.getQuantity());
+            if (!reservation.isReserved()) {
+                shortfalls.add(reservation);
+            }
+        }
+        if (shortfalls.isEmpty()) {
+            // 庫存已在保留時扣除，刪除保留即完成銷售
+            inventoryHoldRepository.deleteAllInBatch(inventoryHoldRepository.findByCartId(cartId));
+        }
+        return shortfalls;
+    }
+
+    /**
+     * 分批回收已到期的保留：每批在一個交易內鎖定 (SKIP LOCKED)、依產品合併歸還庫存並刪除，
+     * 直到某一批不足 sweepBatchSize 筆為止。
+     */
+    @Scheduled(fixedDelayString = "${app.inventory.hold.sweep-interval-ms:60000}")
+    public void sweepExpiredHolds() {
+        int reclaimed = 0;
+        int batchSize;
+        do {
+            batchSize = transactionTemplate.execute(status -> sweepBatch(LocalDateTime.now()));
+            reclaimed += batchSize;
+        } while (batchSize == sweepBatchSize);
+        if (reclaimed > 0) {
+            System.out.println("Reclaimed " + reclaimed + " expired inventory holds.");
+        }
+    }
+
+    private int sweepBatch(LocalDateTime now) {
+        List<InventoryHold> expiredHolds = inventoryHoldRepository.findExpiredForUpdate(now, sweepBatchSize);
+        if (expiredHolds.isEmpty()) {
+            return 0;
+        }
+        // 同一產品的多筆保留合併為一次歸還 (依 id 排序，固定更新產品列的順序以避免死結)
+        Map<String, Integer> releasedByProduct = new TreeMap<>();
+        expiredHolds.forEach(hold -> releasedByProduct.merge(hold.getProductId(), hold.getQuantity(), Integer::sum));
+        releasedByProduct.forEach(inventoryService::release);
+        inventoryHoldRepository.deleteAllInBatch(expiredHolds);
+        return expiredHolds.size();
+    }
+
+    private LocalDateTime nextExpiry() {
+        return LocalDateTime.now().plusMinutes(holdTtlMinutes);
+    }
+}
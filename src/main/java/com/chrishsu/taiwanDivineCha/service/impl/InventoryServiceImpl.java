@@ -0,0 +1,63 @@
+package com.chrishsu.taiwanDivineCha.service.impl;
+
+import com.chrishsu.taiwanDivineCha.dto.StockReservationResult;
+import com.chrishsu.taiwanDivineCha.event.ProductChangedEvent;
+import com.chrishsu.taiwanDivineCha.exception.ResourceNotFoundException;
+import com.chrishsu.taiwanDivineCha.repository.ProductRepository;
+import com.chrishsu.taiwanDivineCha.service.InventoryService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * 以條件式 UPDATE (WHERE stock >= ?) 保留庫存，取代「先讀取庫存、在 Java 中比較、再儲存」的做法。
+ * 資料庫在同一個語句內完成檢查與扣除，並發請求不會超賣，成功時也不需要先讀取產品。
+ * 庫存改變後發布 STOCK_CHANGED 事件，交易提交後只失效該產品的單筆快取與回應 (不遞增目錄版本號，列表的 ETag 不變)，
+ * 回滾時不會發布；可否購買仍一律以這裡的保留結果為準。
+ * 預設的庫存模式；app.inventory.mode=redis 時改用 RedisInventoryServiceImpl。
+ */
+@Service
+@ConditionalOnProperty(name = "app.inventory.mode", havingValue = "database", matchIfMissing = true)
+public class InventoryServiceImpl implements InventoryService {
+
+    private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public InventoryServiceImpl(ProductRepository productRepository, ApplicationEventPublisher eventPublisher) {
+        this.productRepository = productRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    @Transactional
+    public StockReservationResult reserve(String productId, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity to reserve must be positive");
+        }
+        if (productRepository.decrementStock(productId, quantity) == 1) {
+            eventPublisher.publishEvent(new ProductChangedEvent(productId, ProductChangedEvent.ChangeType.STOCK_CHANGED));
+            return StockReservationResult.success(productId, quantity);
+        }
+        // 只有保留失敗時才多讀一次庫存，用來區分產品不存在與庫存不足
+        Integer available = productRepository.findStockById(productId);
+        if (available == null) {
+            throw new ResourceNotFoundException("Product not found with id: " + productId);
+        }
+        return StockReservationResult.shortfall(productId, quantity, available);
+    }
+
+    @Override
+    @Transactional
+    public void release(String productId, int quantity) {
+        if (quantity <= 0) {
+            return;
+        }
+        if (productRepository.incrementStock(productId, quantity) == 0) {
+            // 產品已被刪除，沒有庫存可以歸還
+            System.err.println("Cannot release stock for missing product: " + productId);
+            return;
+        }
+        eventPublisher.publishEvent(new ProductChangedEvent(productId, ProductChangedEvent.ChangeType.STOCK_CHANGED));
+    }
+}
@@ -0,0 +1,423 @@
+package com.chrishsu.taiwanDivineCha.service.impl;
+
+import com.chrishsu.taiwanDivineCha.constant.OrderStatus;
+import com.chrishsu.taiwanDivineCha.constant.OutboxEventType;
+import com.chrishsu.taiwanDivineCha.dto.CartDto;
+import com.chrishsu.taiwanDivineCha.dto.CartItemDto;
+import com.chrishsu.taiwanDivineCha.dto.CreateOrderRequest;
+import com.chrishsu.taiwanDivineCha.dto.OrderDto;
+import com.chrishsu.taiwanDivineCha.dto.OrderItemDto;
+import com.chrishsu.taiwanDivineCha.dto.OrderPageQuery;
+import com.chrishsu.taiwanDivineCha.dto.OrderSearchQuery;
+import com.chrishsu.taiwanDivineCha.dto.OrderSubmissionDto;
+import com.chrishsu.taiwanDivineCha.dto.OrderSummaryDto;
+import com.chrishsu.taiwanDivineCha.exception.OrderQueueFullException;
+import com.chrishsu.taiwanDivineCha.exception.ResourceNotFoundException;
+import com.chrishsu.taiwanDivineCha.id.SnowflakeIdGenerator;
+import com.chrishsu.taiwanDivineCha.model.Order;
+import com.chrishsu.taiwanDivineCha.model.OrderItem;
+import com.chrishsu.taiwanDivineCha.repository.OrderRepository;
+import com.chrishsu.taiwanDivineCha.repository.UserRepository;
+import com.chrishsu.taiwanDivineCha.security.AuthenticatedUser;
+import com.chrishsu.taiwanDivineCha.service.CartService;
+import com.chrishsu.taiwanDivineCha.service.OrderService;
+import com.chrishsu.taiwanDivineCha.service.OutboxService;
+import com.chrishsu.taiwanDivineCha.util.KeysetCursor;
+import com.chrishsu.taiwanDivineCha.util.Page;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * 訂單建立：在同一個交易內把購物車的庫存保留轉為銷售 (已過期的保留以條件式 UPDATE 重新扣除)、
+ * 以結帳當下的售價建立訂單快照、以 JDBC batch 寫入所有訂單項目、寫入訂單成立事件 (outbox)，並清空購物車。任一步驟失敗則全部回滾。
+ * <p>
+ * 下單請求只做欄位檢查並放入有上限的佇列後立即返回 202 與訂單編號，不佔用 Tomcat 的請求執行緒；
+ * 固定數量的 worker 從佇列一次取出多筆 (micro-batch) 依序處理，每筆訂單各自一個交易，單筆失敗不影響同批其他訂單。
+ * 佇列已滿時直接拒絕 (503 + Retry-After)，讓尖峰時的請求快速失敗而不是逾時。
+ * 佇列在記憶體中：處理進度只保存在受理的節點，節點異常終止時尚未處理的訂單會遺失 (購物車與庫存保留不受影響，可重新下單)。
+ */
+@Service
+public class OrderServiceImpl implements OrderService {
+
+    private static final DateTimeFormatter ORDER_NUMBER_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private final OrderRepository orderRepository;
+    private final UserRepository userRepository;
+    private final CartService cartService;
+    private final OutboxService outboxService;
+    private final SnowflakeIdGenerator orderNumberGenerator;
+    private final TransactionTemplate transactionTemplate;
+
+    private final BlockingQueue<PendingOrder> pendingOrders;
+    // 受理後的處理進度 (依訂單編號)，保留一段時間供前端查詢
+    private final Cache<String, Submission> submissions;
+    private final ExecutorService workers;
+    private final int workerCount;
+    private volatile boolean running = true;
+
+    // 每個 worker 一次最多取出的訂單數
+    @Value("${app.order.queue.drain-size:20}")
+    private int drainSize;
+
+    @Value("${app.order.queue.retry-after-seconds:5}")
+    private long retryAfterSeconds;
+
+    // 可使用後台訂單搜尋的帳號 (email，以逗號分隔)
+    private final Set<String> adminEmails;
+
+    public OrderServiceImpl(OrderRepository orderRepository, UserRepository userRepository,
+                            CartService cartService, OutboxService outboxService, SnowflakeIdGenerator orderNumberGenerator,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${app.order.queue.capacity:1000}") int queueCapacity,
+                            @Value("${app.order.queue.workers:4}") int workerCount,
+                            @Value("${app.order.queue.status-ttl-minutes:30}") long statusTtlMinutes,
+                            @Value("${app.admin.emails:}") String adminEmails) {
+        this.orderRepository = orderRepository;
+        this.userRepository = userRepository;
+        this.cartService = cartService;
+        this.outboxService = outboxService;
+        this.orderNumberGenerator = orderNumberGenerator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.pendingOrders = new ArrayBlockingQueue<>(queueCapacity);
+        this.submissions = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMinutes(statusTtlMinutes))
+                .maximumSize(queueCapacity * 10L)
+                .build();
+        this.workerCount = workerCount;
+        this.adminEmails = Arrays.stream(adminEmails.split(","))
+                .map(String::trim)
+                .filter(email -> !email.isEmpty())
+                .map(String::toLowerCase)
+                .collect(Collectors.toSet());
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "order-worker-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void startWorkers() {
+        for (int i = 0; i < workerCount; i++) {
+            workers.execute(this::runWorker);
+        }
+    }
+
+    // 停止受理後，worker 會先處理完佇列中剩下的訂單才結束 (最多等待 30 秒)
+    @PreDestroy
+    public void stopWorkers() {
+        running = false;
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(30, TimeUnit.SECONDS)) {
+                System.err.println("Order workers did not finish in time, " + pendingOrders.size() + " orders left unprocessed.");
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public OrderSubmissionDto submitOrder(AuthenticatedUser principal, CreateOrderRequest createOrderRequest) {
+        if (!running) {
+            throw new OrderQueueFullException("Order service is shutting down", retryAfterSeconds);
+        }
+        // 欄位錯誤在受理前就返回 400，不進入佇列
+        Order order = newOrder(principal, createOrderRequest);
+        submissions.put(order.getOrderNumber(), new Submission(principal.getUserId(), OrderSubmissionDto.processing(order.getOrderNumber())));
+        if (!pendingOrders.offer(new PendingOrder(principal, order))) {
+            submissions.invalidate(order.getOrderNumber());
+            throw new OrderQueueFullException("Too many orders are being processed, please retry later", retryAfterSeconds);
+        }
+        return OrderSubmissionDto.processing(order.getOrderNumber());
+    }
+
+    // 查詢處理進度；不在記憶體中 (已過期或由其他節點受理) 時改查訂單資料表
+    @Override
+    @Transactional(readOnly = true)
+    public OrderSubmissionDto getSubmission(AuthenticatedUser principal, String orderNumber) {
+        Submission submission = submissions.getIfPresent(orderNumber);
+        if (submission != null && submission.userId.equals(principal.getUserId())) {
+            return submission.status;
+        }
+        return orderRepository.findByOrderNumber(orderNumber)
+                .filter(order -> order.getUser().getUserId().equals(principal.getUserId()))
+                .map(order -> OrderSubmissionDto.created(toOrderDto(order)))
+                .orElseThrow(() -> new ResourceNotFoundException("Order not found: " + orderNumber));
+    }
+
+    // 用戶的訂單歷史 (依下單時間由新到舊)，以 keyset 分頁
+    @Override
+    @Transactional(readOnly = true)
+    public Page<OrderSummaryDto> getOrderHistory(AuthenticatedUser principal, OrderPageQuery query) {
+        int limit = query.getLimit();
+        KeysetCursor cursor = decodeCursor(query.getCursor());
+        List<OrderSummaryDto> orders = orderRepository.findPageByUserId(principal.getUserId(),
+                cursorDate(cursor), cursorId(cursor), PageRequest.of(0, limit + 1));
+        Long total = query.isWithTotal() ? orderRepository.countByUserUserId(principal.getUserId()) : null;
+        return toPage(orders, limit, total);
+    }
+
+    // 後台跨用戶搜尋：依下單日期區間 (含頭尾兩天) 與狀態篩選，以 keyset 分頁
+    @Override
+    @Transactional(readOnly = true)
+    public Page<OrderSummaryDto> searchOrders(AuthenticatedUser principal, OrderSearchQuery query) {
+        if (!adminEmails.contains(principal.getEmail().toLowerCase())) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Admin access required");
+        }
+        if (query.getFrom() != null && query.getTo() != null && query.getFrom().isAfter(query.getTo())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "'from' must not be after 'to'");
+        }
+        int limit = query.getLimit();
+        KeysetCursor cursor = decodeCursor(query.getCursor());
+        LocalDateTime from = query.getFrom() == null ? null : query.getFrom().atStartOfDay();
+        LocalDateTime to = query.getTo() == null ? null : query.getTo().plusDays(1).atStartOfDay();
+
+        // 有無狀態條件使用不同的查詢，各自走對應的索引
+        List<OrderSummaryDto> orders = query.getStatus() != null
+                ? orderRepository.findPageByStatus(query.getStatus(), from, to, cursorDate(cursor), cursorId(cursor), PageRequest.of(0, limit + 1))
+                : orderRepository.findPage(from, to, cursorDate(cursor), cursorId(cursor), PageRequest.of(0, limit + 1));
+        Long total = query.isWithTotal() ? orderRepository.countForSearch(query.getStatus(), from, to) : null;
+        return toPage(orders, limit, total);
+    }
+
+    // 多查一筆判斷是否有下一頁，游標為本頁最後一筆的 (createdDate, orderId)
+    private static Page<OrderSummaryDto> toPage(List<OrderSummaryDto> orders, int limit, Long total) {
+        boolean hasMore = orders.size() > limit;
+        if (hasMore) {
+            orders = orders.subList(0, limit);
+        }
+        Page<OrderSummaryDto> page = new Page<>();
+        page.setLimit(limit);
+        page.setResults(orders);
+        if (hasMore) {
+            OrderSummaryDto last = orders.get(orders.size() - 1);
+            page.setNextCursor(new KeysetCursor(last.getCreatedDate().toString(), String.valueOf(last.getOrderId())).encode());
+        }
+        if (total != null) {
+            page.setTotal(total.intValue());
+        }
+        return page;
+    }
+
+    private static KeysetCursor decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            KeysetCursor decoded = KeysetCursor.decode(cursor);
+            // 先解析一次，格式錯誤時在這裡返回 400
+            LocalDateTime.parse(decoded.getSortValue());
+            Long.valueOf(decoded.getId());
+            return decoded;
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+
+    private static LocalDateTime cursorDate(KeysetCursor cursor) {
+        return cursor == null ? null : LocalDateTime.parse(cursor.getSortValue());
+    }
+
+    private static Long cursorId(KeysetCursor cursor) {
+        return cursor == null ? null : Long.valueOf(cursor.getId());
+    }
+
+    private void runWorker() {
+        List<PendingOrder> batch = new ArrayList<>(drainSize);
+        while (running || !pendingOrders.isEmpty()) {
+            try {
+                PendingOrder first = pendingOrders.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                pendingOrders.drainTo(batch, drainSize - 1);
+                batch.forEach(this::process);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void process(PendingOrder pending) {
+        String orderNumber = pending.order.getOrderNumber();
+        Integer userId = pending.principal.getUserId();
+        try {
+            OrderDto order = transactionTemplate.execute(status -> placeOrder(pending.principal, pending.order));
+            submissions.put(orderNumber, new Submission(userId, OrderSubmissionDto.created(order)));
+        } catch (ResponseStatusException e) {
+            submissions.put(orderNumber, new Submission(userId, OrderSubmissionDto.failed(orderNumber, e.getReason())));
+        } catch (RuntimeException e) {
+            System.err.println("Failed to process order " + orderNumber + ": " + e.getMessage());
+            submissions.put(orderNumber, new Submission(userId, OrderSubmissionDto.failed(orderNumber, "Order processing failed")));
+        }
+    }
+
+    // 在 worker 的交易內執行
+    private OrderDto placeOrder(AuthenticatedUser principal, Order order) {
+        // 保留轉為銷售並清空購物車 (購物車為空或庫存不足時拋出 400)，返回結帳當下的價格快照
+        CartDto cart = cartService.checkout(principal);
+        order.setItemCount(cart.getItemCount());
+        order.setTotalAmount(cart.getTotalAmount());
+        // 訂單與訂單項目的主鍵在寫入前產生 (snowflake)，flush 時 Hibernate 依 batch_size 批次 INSERT
+        // (搭配 rewriteBatchedStatements 成為多列 INSERT)
+        List<CartItemDto> lines = cart.getCartItems();
+        for (CartItemDto line : lines) {
+            order.getOrderItems().add(toOrderItem(order, line));
+        }
+        orderRepository.save(order);
+
+        // 訂單確認信與訂單同一交易寫入 outbox，訂單回滾時不會寄出
+        outboxService.enqueue(OutboxEventType.ORDER_PLACED, order.getOrderNumber(),
+                Map.of("email", principal.getEmail(), "orderNumber", order.getOrderNumber(), "totalAmount", order.getTotalAmount()));
+
+        return toOrderDto(order);
+    }
+
+    // 依請求建立訂單主檔；只保存配送與付款方式，信用卡與匯款帳號等付款資料不寫入資料庫
+    private Order newOrder(AuthenticatedUser principal, CreateOrderRequest request) {
+        if (isBlank(request.getDeliveryMethod()) || isBlank(request.getPaymentMethod())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Delivery method and payment method are required");
+        }
+        Order order = new Order();
+        order.setOrderNumber(nextOrderNumber());
+        order.setUser(userRepository.getReferenceById(principal.getUserId()));
+        order.setStatus(OrderStatus.PENDING_PAYMENT);
+        order.setDeliveryMethod(request.getDeliveryMethod());
+        order.setPaymentMethod(request.getPaymentMethod());
+
+        if (request.getDeliveryDetails() != null) {
+            CreateOrderRequest.DeliveryDetails details = request.getDeliveryDetails();
+            if (isBlank(details.getRecipientName()) || isBlank(details.getDeliveryAddress())) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Recipient name and delivery address are required");
+            }
+            order.setRecipientName(details.getRecipientName());
+            order.setRecipientEmail(details.getRecipientEmail());
+            order.setRecipientPhone(details.getRecipientPhone());
+            order.setDeliveryAddress(details.getDeliveryAddress());
+            order.setDeliveryNotes(details.getDeliveryNotes());
+        } else if (request.getPickupDetails() != null) {
+            CreateOrderRequest.PickupDetails details = request.getPickupDetails();
+            if (isBlank(details.getRecipientName()) || isBlank(details.getPickupStore())) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Recipient name and pickup store are required");
+            }
+            order.setRecipientName(details.getRecipientName());
+            order.setRecipientEmail(details.getRecipientEmail());
+            order.setRecipientPhone(details.getRecipientPhone());
+            order.setPickupStore(details.getPickupStore());
+            order.setDeliveryNotes(details.getDeliveryNotes());
+        } else {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Delivery or pickup details are required");
+        }
+        return order;
+    }
+
+    // 訂單編號：下單日期 + snowflake 編號，例如 20251018237528702429167616
+    // 亂數在尖峰時同一秒內的大量訂單可能重複 (被唯一索引擋下而下單失敗)，snowflake 在各節點間都不會重複
+    private String nextOrderNumber() {
+        return LocalDateTime.now().format(ORDER_NUMBER_FORMAT) + orderNumberGenerator.nextId();
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+
+    private static OrderDto toOrderDto(Order order) {
+        return toOrderDto(order, order.getOrderItems().stream().map(OrderServiceImpl::toOrderItemDto).collect(Collectors.toList()));
+    }
+
+    private static OrderItemDto toOrderItemDto(OrderItem orderItem) {
+        OrderItemDto item = new OrderItemDto();
+        item.setProductId(orderItem.getProductId());
+        item.setProductName(orderItem.getProductName());
+        item.setWeight(orderItem.getWeight());
+        item.setUnitPrice(orderItem.getUnitPrice());
+        item.setQuantity(orderItem.getQuantity());
+        item.setSubtotal(orderItem.getSubtotal());
+        return item;
+    }
+
+    private static OrderItem toOrderItem(Order order, CartItemDto line) {
+        OrderItem item = new OrderItem();
+        item.setOrder(order);
+        item.setProductId(line.getProductId());
+        item.setProductName(line.getProductName());
+        item.setWeight(line.getWeight());
+        item.setUnitPrice(line.getPrice());
+        item.setQuantity(line.getQuantity());
+        item.setSubtotal(line.getSubtotal());
+        return item;
+    }
+
+    private static OrderDto toOrderDto(Order order, List<OrderItemDto> orderItems) {
+        OrderDto dto = new OrderDto();
+        dto.setOrderNumber(order.getOrderNumber());
+        dto.setStatus(order.getStatus());
+        dto.setDeliveryMethod(order.getDeliveryMethod());
+        dto.setPaymentMethod(order.getPaymentMethod());
+        dto.setRecipientName(order.getRecipientName());
+        dto.setDeliveryAddress(order.getDeliveryAddress());
+        dto.setPickupStore(order.getPickupStore());
+        dto.setItemCount(order.getItemCount());
+        dto.setTotalAmount(order.getTotalAmount());
+        dto.setCreatedDate(order.getCreatedDate());
+        dto.setOrderItems(orderItems);
+        return dto;
+    }
+
+    private static class PendingOrder {
+
+        private final AuthenticatedUser principal;
+        private final Order order;
+
+        private PendingOrder(AuthenticatedUser principal, Order order) {
+            this.principal = principal;
+            this.order = order;
+        }
+    }
+
+    private static class Submission {
+
+        private final Integer userId; // 只有下單的使用者可以查詢
+        private final OrderSubmissionDto status;
+
+        private Submission(Integer userId, OrderSubmissionDto status) {
+            this.userId = userId;
+            this.status = status;
+        }
+    }
+}
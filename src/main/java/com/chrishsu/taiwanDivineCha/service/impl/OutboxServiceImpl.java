@@ -0,0 +1,201 @@
+package com.chrishsu.taiwanDivineCha.service.impl;
+
+import com.chrishsu.taiwanDivineCha.constant.OutboxEventType;
+import com.chrishsu.taiwanDivineCha.constant.OutboxStatus;
+import com.chrishsu.taiwanDivineCha.model.OutboxEvent;
+import com.chrishsu.taiwanDivineCha.repository.OutboxEventRepository;
+import com.chrishsu.taiwanDivineCha.service.EmailService;
+import com.chrishsu.taiwanDivineCha.service.OutboxService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Transactional outbox：註冊、忘記密碼與下單時只在原本的交易內寫入一筆 outbox_event，
+ * 寄信等外部呼叫由排程在交易提交後分批派送，原本的交易只包含資料庫操作，也不會在回滾後寄出信件。
+ * <p>
+ * 派送流程：在一個短交易內以 SKIP LOCKED 鎖定一批到期事件並取得租約 (next_attempt_at 延後到租約到期)，
+ * 提交後在交易外逐筆派送，最後再以一個短交易標記成功或排定重試 (指數退避)。
+ * 節點在派送途中中斷時，租約到期後事件會被重新派送，因此為至少一次 (at-least-once) 的語意，收信者可能收到重複的信件。
+ */
+@Service
+public class OutboxServiceImpl implements OutboxService {
+
+    private static final TypeReference<Map<String, Object>> PAYLOAD_TYPE = new TypeReference<>() {};
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final EmailService emailService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.outbox.batch-size:50}")
+    private int batchSize;
+
+    // 租約長度需大於派送一批事件所需的時間，否則同一事件可能被其他節點同時派送
+    @Value("${app.outbox.lease-seconds:300}")
+    private long leaseSeconds;
+
+    @Value("${app.outbox.max-attempts:10}")
+    private int maxAttempts;
+
+    // 第 n 次失敗後等待 retry-base-seconds * 2^(n-1) 秒再重試，最多等待 retry-max-seconds 秒
+    @Value("${app.outbox.retry-base-seconds:30}")
+    private long retryBaseSeconds;
+
+    @Value("${app.outbox.retry-max-seconds:3600}")
+    private long retryMaxSeconds;
+
+    @Value("${app.outbox.retention-days:7}")
+    private long retentionDays;
+
+    public OutboxServiceImpl(OutboxEventRepository outboxEventRepository, EmailService emailService,
+                             ObjectMapper objectMapper, PlatformTransactionManager transactionManager) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.emailService = emailService;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(OutboxEventType eventType, String aggregateId, Map<String, Object> payload) {
+        OutboxEvent event = new OutboxEvent();
+        event.setEventType(eventType);
+        event.setAggregateId(aggregateId);
+        event.setPayload(toJson(payload));
+        event.setStatus(OutboxStatus.PENDING);
+        event.setAttempts(0);
+        event.setNextAttemptAt(LocalDateTime.now());
+        outboxEventRepository.save(event);
+    }
+
+    /**
+     * 分批派送到期的事件，直到某一批不足 batchSize 筆為止。
+     */
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval-ms:1000}")
+    public void dispatchPendingEvents() {
+        List<OutboxEvent> batch;
+        do {
+            batch = transactionTemplate.execute(status -> leaseBatch(LocalDateTime.now()));
+            dispatchBatch(batch);
+        } while (batch.size() == batchSize);
+    }
+
+    // 每小時清除一次超過保存期限的已派送事件
+    @Scheduled(fixedDelayString = "${app.outbox.purge-interval-ms:3600000}")
+    public void purgeSentEvents() {
+        Integer purged = transactionTemplate.execute(status ->
+                outboxEventRepository.deleteSentBefore(OutboxStatus.SENT, LocalDateTime.now().minusDays(retentionDays)));
+        if (purged != null && purged > 0) {
+            System.out.println("Purged " + purged + " sent outbox events.");
+        }
+    }
+
+    private List<OutboxEvent> leaseBatch(LocalDateTime now) {
+        List<OutboxEvent> dueEvents = outboxEventRepository.findDueForUpdate(now, batchSize);
+        if (dueEvents.isEmpty()) {
+            return Collections.emptyList();
+        }
+        outboxEventRepository.lease(dueEvents.stream().map(OutboxEvent::getEventId).collect(Collectors.toList()),
+                now.plusSeconds(leaseSeconds));
+        // 與資料庫同步累加後的次數 (native 查詢取出的實體不會隨 UPDATE 語句更新)
+        dueEvents.forEach(event -> event.setAttempts(event.getAttempts() + 1));
+        return dueEvents;
+    }
+
+    // 在交易外派送，成功的事件一次標記，失敗的事件逐筆排定重試
+    private void dispatchBatch(List<OutboxEvent> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<Long> sentIds = new ArrayList<>();
+        List<OutboxEvent> failedEvents = new ArrayList<>();
+        List<String> errors = new ArrayList<>();
+        for (OutboxEvent event : batch) {
+            try {
+                dispatch(event);
+                sentIds.add(event.getEventId());
+            } catch (RuntimeException e) {
+                System.err.println("Failed to dispatch outbox event " + event.getEventId() + " (" + event.getEventType()
+                        + ", attempt " + event.getAttempts() + "): " + e.getMessage());
+                failedEvents.add(event);
+                errors.add(truncate(e.getMessage()));
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!sentIds.isEmpty()) {
+                outboxEventRepository.markSent(sentIds, OutboxStatus.SENT, LocalDateTime.now());
+            }
+            for (int i = 0; i < failedEvents.size(); i++) {
+                OutboxEvent event = failedEvents.get(i);
+                boolean exhausted = event.getAttempts() >= maxAttempts;
+                outboxEventRepository.markFailedAttempt(event.getEventId(),
+                        exhausted ? OutboxStatus.FAILED : OutboxStatus.PENDING,
+                        exhausted ? LocalDateTime.now() : LocalDateTime.now().plusSeconds(retryDelaySeconds(event.getAttempts())),
+                        errors.get(i));
+            }
+        });
+    }
+
+    private void dispatch(OutboxEvent event) {
+        Map<String, Object> payload = fromJson(event.getPayload());
+        String email = (String) payload.get("email");
+        switch (event.getEventType()) {
+            case USER_REGISTERED:
+                emailService.sendEmailVerificationAndSetPasswordEmail(email, (String) payload.get("link"));
+                break;
+            case PASSWORD_RESET_REQUESTED:
+                emailService.sendResetPasswordEmail(email, (String) payload.get("link"));
+                break;
+            case ORDER_PLACED:
+                emailService.sendOrderConfirmationEmail(email, (String) payload.get("orderNumber"),
+                        ((Number) payload.get("totalAmount")).intValue());
+                break;
+            default:
+                throw new IllegalStateException("Unsupported outbox event type: " + event.getEventType());
+        }
+    }
+
+    private long retryDelaySeconds(int attempts) {
+        long delay = retryBaseSeconds << Math.min(attempts - 1, 20);
+        return Math.min(delay, retryMaxSeconds);
+    }
+
+    private String toJson(Map<String, Object> payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Failed to serialize outbox payload", e);
+        }
+    }
+
+    private Map<String, Object> fromJson(String payload) {
+        try {
+            return objectMapper.readValue(payload, PAYLOAD_TYPE);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to parse outbox payload", e);
+        }
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() <= MAX_ERROR_LENGTH ? message : message.substring(0, MAX_ERROR_LENGTH);
+    }
+}
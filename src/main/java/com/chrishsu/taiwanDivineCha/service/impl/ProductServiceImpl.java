@@ -1,41 +1,108 @@
 package com.chrishsu.taiwanDivineCha.service.impl;
 
+import com.chrishsu.taiwanDivineCha.cache.ProductCatalogCache;
 import com.chrishsu.taiwanDivineCha.constant.ProductCategory;
+import com.chrishsu.taiwanDivineCha.constant.ProductSortField;
+import com.chrishsu.taiwanDivineCha.dto.ProductBatchResult;
 import com.chrishsu.taiwanDivineCha.dto.ProductDto;
+import com.chrishsu.taiwanDivineCha.dto.ProductFacetQuery;
+import com.chrishsu.taiwanDivineCha.dto.ProductFacetResult;
+import com.chrishsu.taiwanDivineCha.dto.ProductPageQuery;
+import com.chrishsu.taiwanDivineCha.dto.ProductSummaryDto;
+import com.chrishsu.taiwanDivineCha.event.ProductChangedEvent;
+import com.chrishsu.taiwanDivineCha.event.ProductChangedEvent.ChangeType;
 import com.chrishsu.taiwanDivineCha.exception.ResourceNotFoundException;
 import com.chrishsu.taiwanDivineCha.mapper.ProductMapper;
 import com.chrishsu.taiwanDivineCha.model.Product;
 import com.chrishsu.taiwanDivineCha.repository.ProductRepository;
+import com.chrishsu.taiwanDivineCha.search.ProductFacetIndex;
+import com.chrishsu.taiwanDivineCha.search.ProductSearchIndex;
 import com.chrishsu.taiwanDivineCha.service.ProductService;
+import com.chrishsu.taiwanDivineCha.util.KeysetCursor;
+import com.chrishsu.taiwanDivineCha.util.Page;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 public class ProductServiceImpl implements ProductService {
 
+    // 批次查詢單次最多的 id 數量
+    private static final int MAX_BATCH_IDS = 100;
+
     private final ProductRepository productRepository;
     private final ProductMapper productMapper; // 注入 Mapper
+    private final ProductCatalogCache productCatalogCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductFacetIndex productFacetIndex;
 
-    public ProductServiceImpl(ProductRepository productRepository, ProductMapper productMapper) {
+    public ProductServiceImpl(ProductRepository productRepository, ProductMapper productMapper,
+                              ProductCatalogCache productCatalogCache, ApplicationEventPublisher eventPublisher,
+                              ProductSearchIndex productSearchIndex, ProductFacetIndex productFacetIndex) {
         this.productRepository = productRepository;
         this.productMapper = productMapper;
+        this.productCatalogCache = productCatalogCache;
+        this.eventPublisher = eventPublisher;
+        this.productSearchIndex = productSearchIndex;
+        this.productFacetIndex = productFacetIndex;
     }
 
-    // 獲取所有產品
-    public List<ProductDto> getAllProducts() {
-        return productRepository.findAll().stream()
-                .map(productMapper::toDto) // 轉換為 DTO
-                .collect(Collectors.toList());
+    // 獲取所有產品的列表摘要 (優先從快取讀取，未命中時只查詢列表需要的欄位)
+    public List<ProductSummaryDto> getAllProducts() {
+        return productCatalogCache.getAllProducts(() -> productMapper.withWeightPrices(productRepository.findAllSummaries()));
     }
 
-    // 根據 ID 獲取產品
+    // 根據 ID 獲取產品 (優先從快取讀取)
     public ProductDto getProductById(String id) { // ID 類型改為 String
-        return productRepository.findById(id)
+        return productCatalogCache.getProduct(id, key -> productRepository.findById(key)
                 .map(productMapper::toDto)
-                .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
+                .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + key)));
+    }
+
+    // 一次取得多筆產品 (本地快取 → Redis MGET → 一次 findAllById)，依請求順序返回並列出找不到的 id
+    public ProductBatchResult getProductsByIds(List<String> ids) {
+        Set<String> uniqueIds = new LinkedHashSet<>();
+        for (String id : ids) {
+            if (id != null && !id.trim().isEmpty()) {
+                uniqueIds.add(id.trim());
+            }
+        }
+        if (uniqueIds.size() > MAX_BATCH_IDS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + MAX_BATCH_IDS + " ids are allowed per request");
+        }
+
+        Map<String, ProductDto> found = productCatalogCache.getProducts(uniqueIds, missingIds ->
+                productRepository.findAllById(missingIds).stream()
+                        .map(productMapper::toDto)
+                        .collect(Collectors.toMap(ProductDto::getId, Function.identity())));
+
+        List<ProductDto> products = new ArrayList<>(uniqueIds.size());
+        List<String> missingIds = new ArrayList<>();
+        for (String id : uniqueIds) {
+            ProductDto product = found.get(id);
+            if (product != null) {
+                products.add(product);
+            } else {
+                missingIds.add(id);
+            }
+        }
+        return new ProductBatchResult(products, missingIds);
     }
 
     // 創建新產品
@@ -47,7 +114,9 @@ public class ProductServiceImpl implements ProductService {
         Product product = productMapper.toEntity(productDto);
         // 通常創建時，DTO 的 ID 會直接用作 Entity 的 ID
         // 如果是自動生成的 ID，則這行會不同
-        return productMapper.toDto(productRepository.save(product));
+        ProductDto createdProduct = productMapper.toDto(productRepository.save(product));
+        eventPublisher.publishEvent(new ProductChangedEvent(createdProduct.getId(), ChangeType.CREATED));
+        return createdProduct;
     }
 
     // 更新產品
@@ -59,7 +128,9 @@ public class ProductServiceImpl implements ProductService {
         // 使用 Mapper 更新現有實體
         productMapper.updateEntityFromDto(productDto, existingProduct);
 
-        return productMapper.toDto(productRepository.save(existingProduct));
+        ProductDto updatedProduct = productMapper.toDto(productRepository.save(existingProduct));
+        eventPublisher.publishEvent(new ProductChangedEvent(id, ChangeType.UPDATED));
+        return updatedProduct;
     }
 
     // 刪除產品
@@ -69,18 +140,150 @@ public class ProductServiceImpl implements ProductService {
             throw new ResourceNotFoundException("Product not found with id: " + id);
         }
         productRepository.deleteById(id);
+        eventPublisher.publishEvent(new ProductChangedEvent(id, ChangeType.DELETED));
     }
 
     // 根據分類獲取產品 (假設 TeaProductCategory 有 fromDisplayName 方法)
-    public List<ProductDto> getProductsByCategory(String categoryDisplayName) {
+    public List<ProductSummaryDto> getProductsByCategory(String categoryDisplayName) {
         try {
             ProductCategory category = ProductCategory.fromDisplayName(categoryDisplayName);
-            return productRepository.findByCategory(category).stream()
-                    .map(productMapper::toDto)
-                    .collect(Collectors.toList());
+            return productCatalogCache.getProductsByCategory(category, () -> productMapper.withWeightPrices(productRepository.findSummariesByCategory(category)));
         } catch (IllegalArgumentException e) {
             // 如果分類名稱無效，可以返回空列表或拋出特定異常
             return List.of();
         }
     }
-}
\ No newline at end of file
+
+    // 全文檢索 (記憶體倒排索引，不查詢資料庫)
+    public List<ProductSummaryDto> searchProducts(String keyword, int limit) {
+        if (keyword == null || keyword.trim().isEmpty()) {
+            return List.of();
+        }
+        return productSearchIndex.search(keyword, limit);
+    }
+
+    // 多條件篩選與 facet 數量 (記憶體 bitmap 索引，不查詢資料庫)
+    // 產品清單依 id 做 keyset 分頁，與 getProductPage 相同多取一筆判斷是否還有下一頁
+    public ProductFacetResult filterProducts(ProductFacetQuery query) {
+        String afterId = null;
+        if (query.getCursor() != null && !query.getCursor().isEmpty()) {
+            try {
+                afterId = KeysetCursor.decode(query.getCursor()).getId();
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+            }
+        }
+
+        int limit = query.getLimit();
+        ProductFacetResult result = productFacetIndex.filter(query, afterId, limit + 1);
+        List<ProductSummaryDto> products = result.getProducts();
+        if (products.size() > limit) {
+            products = products.subList(0, limit);
+            ProductSummaryDto last = products.get(products.size() - 1);
+            result.setNextCursor(new KeysetCursor(last.getId(), last.getId()).encode());
+        }
+        result.setProducts(products);
+        return result;
+    }
+
+    // Keyset (游標) 分頁：多取一筆判斷是否還有下一頁，並以最後一筆的 (排序欄位, id) 產生 nextCursor
+    @Transactional(readOnly = true)
+    public Page<ProductSummaryDto> getProductPage(ProductPageQuery query) {
+        ProductSortField sortField = ProductSortField.fromParamName(query.getSort());
+        boolean ascending = Sort.Direction.fromString(query.getDirection()).isAscending();
+        int limit = query.getLimit();
+
+        Page<ProductSummaryDto> page = new Page<>();
+        page.setLimit(limit);
+
+        ProductCategory category = null;
+        if (query.getCategory() != null && !query.getCategory().trim().isEmpty()) {
+            try {
+                category = ProductCategory.fromDisplayName(query.getCategory());
+            } catch (IllegalArgumentException e) {
+                // 分類名稱無效時與 getProductsByCategory 一致，返回空結果
+                page.setResults(List.of());
+                page.setTotal(query.isWithTotal() ? 0 : null);
+                return page;
+            }
+        }
+
+        KeysetCursor cursor = null;
+        if (query.getCursor() != null && !query.getCursor().isEmpty()) {
+            try {
+                cursor = KeysetCursor.decode(query.getCursor());
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+            }
+        }
+
+        List<ProductSummaryDto> products = findPage(sortField, ascending, category, cursor, PageRequest.of(0, limit + 1));
+        boolean hasMore = products.size() > limit;
+        if (hasMore) {
+            products = products.subList(0, limit);
+        }
+
+        page.setResults(productMapper.withWeightPrices(products));
+        if (hasMore) {
+            page.setNextCursor(toCursor(sortField, products.get(products.size() - 1)).encode());
+        }
+        if (query.isWithTotal()) {
+            page.setTotal((int) (category == null ? productRepository.count() : productRepository.countByCategory(category)));
+        }
+        return page;
+    }
+
+    private List<ProductSummaryDto> findPage(ProductSortField sortField, boolean ascending, ProductCategory category,
+                                   KeysetCursor cursor, Pageable pageable) {
+        String afterId = cursor == null ? null : cursor.getId();
+        try {
+            switch (sortField) {
+                case PRICE: {
+                    Integer afterPrice = cursor == null ? null : Integer.valueOf(cursor.getSortValue());
+                    if (category != null) {
+                        return ascending
+                                ? productRepository.findPageInCategoryOrderByPriceAsc(category, afterPrice, afterId, pageable)
+                                : productRepository.findPageInCategoryOrderByPriceDesc(category, afterPrice, afterId, pageable);
+                    }
+                    return ascending
+                            ? productRepository.findPageOrderByPriceAsc(afterPrice, afterId, pageable)
+                            : productRepository.findPageOrderByPriceDesc(afterPrice, afterId, pageable);
+                }
+                case LAST_MODIFIED_DATE: {
+                    LocalDateTime afterDate = cursor == null ? null : LocalDateTime.parse(cursor.getSortValue());
+                    if (category != null) {
+                        return ascending
+                                ? productRepository.findPageInCategoryOrderByLastModifiedDateAsc(category, afterDate, afterId, pageable)
+                                : productRepository.findPageInCategoryOrderByLastModifiedDateDesc(category, afterDate, afterId, pageable);
+                    }
+                    return ascending
+                            ? productRepository.findPageOrderByLastModifiedDateAsc(afterDate, afterId, pageable)
+                            : productRepository.findPageOrderByLastModifiedDateDesc(afterDate, afterId, pageable);
+                }
+                default:
+                    if (category != null) {
+                        return ascending
+                                ? productRepository.findPageInCategoryOrderByIdAsc(category, afterId, pageable)
+                                : productRepository.findPageInCategoryOrderByIdDesc(category, afterId, pageable);
+                    }
+                    return ascending
+                            ? productRepository.findPageOrderByIdAsc(afterId, pageable)
+                            : productRepository.findPageOrderByIdDesc(afterId, pageable);
+            }
+        } catch (NumberFormatException | DateTimeParseException e) {
+            // 游標與排序欄位不符 (例如換了排序方式卻沿用舊游標)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor does not match sort field");
+        }
+    }
+
+    private KeysetCursor toCursor(ProductSortField sortField, ProductSummaryDto last) {
+        switch (sortField) {
+            case PRICE:
+                return new KeysetCursor(String.valueOf(last.getPrice()), last.getId());
+            case LAST_MODIFIED_DATE:
+                return new KeysetCursor(last.getLastModifiedDate().toString(), last.getId());
+            default:
+                return new KeysetCursor(last.getId(), last.getId());
+        }
+    }
+}
@@ -0,0 +1,533 @@
+package com.chrishsu.taiwanDivineCha.service.impl;
+
+import com.chrishsu.taiwanDivineCha.dto.AddToCartRequest;
+import com.chrishsu.taiwanDivineCha.dto.CartBatchRequest;
+import com.chrishsu.taiwanDivineCha.dto.CartDto;
+import com.chrishsu.taiwanDivineCha.dto.CartItemDto;
+import com.chrishsu.taiwanDivineCha.dto.CartSummaryDto;
+import com.chrishsu.taiwanDivineCha.dto.ProductDto;
+import com.chrishsu.taiwanDivineCha.dto.StockReservationResult;
+import com.chrishsu.taiwanDivineCha.dto.UpdateCartItemRequest;
+import com.chrishsu.taiwanDivineCha.model.Cart;
+import com.chrishsu.taiwanDivineCha.model.CartItem;
+import com.chrishsu.taiwanDivineCha.model.User;
+import com.chrishsu.taiwanDivineCha.pricing.WeightPricingEngine;
+import com.chrishsu.taiwanDivineCha.repository.CartRepository;
+import com.chrishsu.taiwanDivineCha.repository.ProductRepository;
+import com.chrishsu.taiwanDivineCha.repository.UserRepository;
+import com.chrishsu.taiwanDivineCha.security.AuthenticatedUser;
+import com.chrishsu.taiwanDivineCha.service.CartService;
+import com.chrishsu.taiwanDivineCha.service.InventoryHoldService;
+import com.chrishsu.taiwanDivineCha.service.ProductService;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 存放在 Redis 的購物車 (app.cart.store=redis 時啟用)。
+ * 每個使用者的購物車是一個 Redis hash (field 為「重量:產品 id」，值為數量)，新增 / 修改 / 刪除只需一次 Redis 寫入，
+ * 並把使用者加入待寫回集合；排程再把同一購物車多次的變更合併，分批寫回 cart / cart_item 資料表。
+ * 購物車與待寫回集合都在 Redis 中 (搭配 Redis 持久化)，任何節點重啟都不會遺失；Redis 中沒有的購物車會從 MySQL 載入。
+ * 庫存保留仍透過 InventoryHoldService，與 MySQL 購物車模式相同。
+ */
+@Service
+@ConditionalOnProperty(name = "app.cart.store", havingValue = "redis")
+public class RedisCartServiceImpl implements CartService {
+
+    private static final String CART_KEY_PREFIX = "cart:";
+    private static final String DIRTY_KEY = "cart:dirty";
+    // 購物車 hash 中的保留欄位：MySQL 的 cart_id (同時代表購物車已載入，空購物車也會有此欄位)
+    private static final String CART_ID_FIELD = "cartId";
+    // 批次操作遇到並發修改時的最多嘗試次數
+    private static final int MAX_BATCH_ATTEMPTS = 3;
+
+    // ARGV: ttl, field, quantity, userId；數量為 0 時刪除該項目
+    private static final RedisScript<Long> SET_ITEM_SCRIPT = RedisScript.of(
+            "if ARGV[3] == '0' then redis.call('HDEL', KEYS[1], ARGV[2]) " +
+            "else redis.call('HSET', KEYS[1], ARGV[2], ARGV[3]) end " +
+            "redis.call('EXPIRE', KEYS[1], ARGV[1]) " +
+            "redis.call('SADD', KEYS[2], ARGV[4]) " +
+            "return 1", Long.class);
+
+    // ARGV: ttl, field, delta, userId, cartIdField；在 Redis 內原子地累加數量，返回累加後的數量
+    // 購物車在讀取後已過期 (沒有 cartId 欄位) 時不寫入並返回 -1，由呼叫端重新載入
+    private static final RedisScript<Long> ADD_ITEM_SCRIPT = RedisScript.of(
+            "if redis.call('HEXISTS', KEYS[1], ARGV[5]) == 0 then return -1 end " +
+            "local quantity = redis.call('HINCRBY', KEYS[1], ARGV[2], ARGV[3]) " +
+            "redis.call('EXPIRE', KEYS[1], ARGV[1]) " +
+            "redis.call('SADD', KEYS[2], ARGV[4]) " +
+            "return quantity", Long.class);
+
+    // ARGV: ttl, userId, cartIdField, field1, expected1, quantity1, field2, expected2, quantity2 ...
+    // 批次操作的所有變更一次寫入 (compare-and-set)：每個欄位目前的值必須仍是讀取時的值 (不存在為空字串)，
+    // 購物車也必須仍存在，否則完全不寫入並返回 0，由呼叫端重新讀取後再套用
+    private static final RedisScript<Long> SET_ITEMS_SCRIPT = RedisScript.of(
+            "if redis.call('HEXISTS', KEYS[1], ARGV[3]) == 0 then return 0 end " +
+            "for i = 4, #ARGV, 3 do " +
+            "if (redis.call('HGET', KEYS[1], ARGV[i]) or '') ~= ARGV[i + 1] then return 0 end end " +
+            "for i = 4, #ARGV, 3 do " +
+            "if ARGV[i + 2] == '0' then redis.call('HDEL', KEYS[1], ARGV[i]) " +
+            "else redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 2]) end end " +
+            "redis.call('EXPIRE', KEYS[1], ARGV[1]) " +
+            "redis.call('SADD', KEYS[2], ARGV[2]) " +
+            "return 1", Long.class);
+
+    // ARGV: ttl, field1, value1, field2, value2 ...；購物車已存在時不覆蓋 (避免蓋掉其他請求剛寫入的變更)
+    private static final RedisScript<Long> LOAD_SCRIPT = RedisScript.of(
+            "if redis.call('EXISTS', KEYS[1]) == 1 then return 0 end " +
+            "for i = 2, #ARGV, 2 do redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 1]) end " +
+            "redis.call('EXPIRE', KEYS[1], ARGV[1]) " +
+            "return 1", Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final CartRepository cartRepository;
+    private final ProductRepository productRepository;
+    private final UserRepository userRepository;
+    private final ProductService productService;
+    private final InventoryHoldService inventoryHoldService;
+    private final WeightPricingEngine weightPricingEngine;
+    private final TransactionTemplate transactionTemplate;
+
+    // 購物車在 Redis 中的存活時間，每次修改都會重新計算
+    @Value("${app.cart.redis.ttl-days:30}")
+    private long ttlDays;
+
+    @Value("${app.cart.redis.flush-batch-size:200}")
+    private int flushBatchSize;
+
+    public RedisCartServiceImpl(StringRedisTemplate redisTemplate, CartRepository cartRepository,
+                                ProductRepository productRepository, UserRepository userRepository,
+                                ProductService productService, InventoryHoldService inventoryHoldService,
+                                WeightPricingEngine weightPricingEngine, PlatformTransactionManager transactionManager) {
+        this.redisTemplate = redisTemplate;
+        this.cartRepository = cartRepository;
+        this.productRepository = productRepository;
+        this.userRepository = userRepository;
+        this.productService = productService;
+        this.inventoryHoldService = inventoryHoldService;
+        this.weightPricingEngine = weightPricingEngine;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public Cart getOrCreateCart(User user) {
+        return transactionTemplate.execute(status -> cartRepository.findByUser(user)
+                .orElseGet(() -> {
+                    Cart newCart = new Cart();
+                    newCart.setUser(user);
+                    return cartRepository.save(newCart);
+                }));
+    }
+
+    // 只保留新增的數量 (addToHold)，再以 HINCRBY 在 Redis 內累加；
+    // 不先讀取舊數量再寫回絕對值，同一使用者同時加入同一產品時不會遺失其中一次
+    @Override
+    public void addToCart(AuthenticatedUser principal, AddToCartRequest addToCartRequest) {
+        String productId = addToCartRequest.getProductId();
+        Integer weight = addToCartRequest.getWeight();
+        int quantity = addToCartRequest.getQuantity();
+        Integer cartId = Integer.valueOf(loadCart(principal).get(CART_ID_FIELD));
+
+        StockReservationResult reservation = inventoryHoldService.addToHold(cartId, productId, weight, quantity);
+        if (!reservation.isReserved()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Not enough stock: requested " + reservation.getRequested()
+                    + ", available " + reservation.getAvailable() + ", short by " + reservation.getShortfall());
+        }
+        inventoryHoldService.extendHolds(cartId);
+
+        List<String> keys = List.of(cartKey(principal.getUserId()), DIRTY_KEY);
+        Object[] args = {String.valueOf(ttl().getSeconds()), itemField(productId, weight), String.valueOf(quantity),
+                String.valueOf(principal.getUserId()), CART_ID_FIELD};
+        Long newQuantity = redisTemplate.execute(ADD_ITEM_SCRIPT, keys, args);
+        if (newQuantity != null && newQuantity < 0) {
+            // 購物車剛好過期：重新從 MySQL 載入後再累加一次 (保留已包含這次新增的數量)
+            loadCart(principal);
+            redisTemplate.execute(ADD_ITEM_SCRIPT, keys, args);
+        }
+    }
+
+    @Override
+    public void updateCartItem(AuthenticatedUser principal, UpdateCartItemRequest updateCartItemRequest) {
+        Map<String, String> cart = loadCart(principal);
+        if (!cart.containsKey(itemField(updateCartItemRequest.getProductId(), updateCartItemRequest.getWeight()))) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Cart item not found");
+        }
+        setItem(principal, cart, updateCartItemRequest.getProductId(), updateCartItemRequest.getWeight(),
+                updateCartItemRequest.getQuantity());
+    }
+
+    @Override
+    public void removeCartItem(AuthenticatedUser principal, String productId, Integer weight) {
+        Map<String, String> cart = loadCart(principal);
+        if (cart.containsKey(itemField(productId, weight))) {
+            setItem(principal, cart, productId, weight, 0);
+        }
+    }
+
+    @Override
+    public CartDto getCart(AuthenticatedUser principal) {
+        return toCartDto(principal, loadCart(principal));
+    }
+
+    // 以已讀出的 Redis 購物車內容建立 CartDto (不再讀取 Redis)
+    private CartDto toCartDto(AuthenticatedUser principal, Map<String, String> cart) {
+        Map<String, Integer> quantities = items(cart);
+
+        List<String> productIds = new ArrayList<>();
+        quantities.keySet().forEach(field -> productIds.add(productIdOf(field)));
+        // 產品資料由產品快取批次取得，不需查詢 MySQL
+        Map<String, ProductDto> products = new HashMap<>();
+        if (!productIds.isEmpty()) {
+            productService.getProductsByIds(productIds).getProducts().forEach(product -> products.put(product.getId(), product));
+        }
+
+        List<CartItemDto> cartItemDtos = new ArrayList<>();
+        quantities.forEach((field, quantity) -> {
+            ProductDto product = products.get(productIdOf(field));
+            if (product == null) {
+                return; // 產品已下架
+            }
+            int weight = weightOf(field);
+            int adjustedPrice = weightPricingEngine.priceOf(product.getId(), product.getPrice(), weight);
+
+            CartItemDto dto = new CartItemDto();
+            dto.setProductId(product.getId());
+            dto.setProductName(product.getName());
+            dto.setImageUrl(product.getImageUrl());
+            dto.setCategory(product.getCategory());
+            dto.setPrice(adjustedPrice);
+            dto.setStock(product.getStock());
+            dto.setQuantity(quantity);
+            dto.setWeight(weight);
+            dto.setSubtotal(adjustedPrice * quantity);
+            cartItemDtos.add(dto);
+        });
+
+        CartDto cartDto = new CartDto();
+        cartDto.setCartId(Integer.valueOf(cart.get(CART_ID_FIELD)));
+        cartDto.setUserId(principal.getUserId());
+        cartDto.setCartItems(cartItemDtos);
+        cartDto.setItemCount(cartItemDtos.stream().mapToInt(CartItemDto::getQuantity).sum());
+        cartDto.setTotalAmount(cartItemDtos.stream().mapToInt(CartItemDto::getSubtotal).sum());
+        return cartDto;
+    }
+
+    /**
+     * 批次套用新增 / 修改 / 刪除：算出結果後以一次查詢檢查所有受影響產品的庫存，
+     * 在同一個交易內調整全部保留 (任一不足則全部回滾)，再以一次 Redis 指令寫入購物車。
+     * Redis 寫入以讀取時的數量做 compare-and-set；期間購物車被其他請求修改時回滾保留，
+     * 重新讀取後再套用，最多 MAX_BATCH_ATTEMPTS 次，仍衝突時返回 409。
+     */
+    @Override
+    public CartDto applyBatch(AuthenticatedUser principal, CartBatchRequest cartBatchRequest) {
+        for (int attempt = 0; attempt < MAX_BATCH_ATTEMPTS; attempt++) {
+            CartDto cartDto = tryApplyBatch(principal, cartBatchRequest);
+            if (cartDto != null) {
+                return cartDto;
+            }
+        }
+        throw new ResponseStatusException(HttpStatus.CONFLICT, "Cart was modified concurrently, please retry");
+    }
+
+    // 返回 null 表示 Redis 中的購物車在讀取後已被修改 (保留已回滾)
+    private CartDto tryApplyBatch(AuthenticatedUser principal, CartBatchRequest cartBatchRequest) {
+        Map<String, String> cart = loadCart(principal);
+        Integer cartId = Integer.valueOf(cart.get(CART_ID_FIELD));
+        Map<String, Integer> current = items(cart);
+        Map<String, Integer> changed = CartBatchPlanner.changes(current, CartBatchPlanner.apply(current, cartBatchRequest.getOperations()));
+        if (changed.isEmpty()) {
+            return getCart(principal);
+        }
+
+        Map<String, Integer> stockByProductId = new HashMap<>();
+        for (Object[] row : productRepository.findStockByIdIn(changed.keySet().stream().map(CartBatchPlanner::productIdOf).distinct().toList())) {
+            stockByProductId.put((String) row[0], ((Number) row[1]).intValue());
+        }
+        CartBatchPlanner.checkStock(current, changed, stockByProductId);
+
+        List<String> args = new ArrayList<>();
+        args.add(String.valueOf(ttl().getSeconds()));
+        args.add(String.valueOf(principal.getUserId()));
+        args.add(CART_ID_FIELD);
+        changed.forEach((field, quantity) -> {
+            args.add(field);
+            args.add(cart.getOrDefault(field, ""));
+            args.add(String.valueOf(quantity));
+        });
+
+        // Redis 寫入在保留的交易內執行：寫入失敗 (購物車已被修改) 時保留一併回滾
+        Boolean applied = transactionTemplate.execute(status -> {
+            changed.forEach((field, quantity) -> {
+                StockReservationResult reservation = inventoryHoldService.updateHold(cartId, productIdOf(field), weightOf(field), quantity);
+                if (!reservation.isReserved()) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Not enough stock: requested " + reservation.getRequested()
+                            + ", available " + reservation.getAvailable() + ", short by " + reservation.getShortfall());
+                }
+            });
+            inventoryHoldService.extendHolds(cartId);
+            Long result = redisTemplate.execute(SET_ITEMS_SCRIPT, List.of(cartKey(principal.getUserId()), DIRTY_KEY), args.toArray());
+            if (result == null || result == 0) {
+                status.setRollbackOnly();
+                return false;
+            }
+            return true;
+        });
+        return Boolean.TRUE.equals(applied) ? getCart(principal) : null;
+    }
+
+    /**
+     * 購物車摘要：Redis 模式下購物車本身就在記憶體中，直接讀取 hash 並以價格表計價，不查詢產品也不查詢 MySQL。
+     * 已下架 (不在價格表中) 的產品不計入，與 getCart 一致。
+     */
+    @Override
+    public CartSummaryDto getCartSummary(AuthenticatedUser principal) {
+        Map<String, String> cart = loadCart(principal);
+        int itemCount = 0;
+        int totalAmount = 0;
+        for (Map.Entry<String, Integer> item : items(cart).entrySet()) {
+            Integer price = weightPricingEngine.priceOf(productIdOf(item.getKey()), weightOf(item.getKey()));
+            if (price != null) {
+                itemCount += item.getValue();
+                totalAmount += price * item.getValue();
+            }
+        }
+        return new CartSummaryDto(Integer.valueOf(cart.get(CART_ID_FIELD)), itemCount, totalAmount);
+    }
+
+    // 結帳前先把這個購物車同步寫回 MySQL，再把庫存保留轉為銷售並清空兩邊的購物車
+    // 快照與寫回 MySQL 的內容來自同一次 Redis 讀取，訂單金額與實際轉為銷售的項目一定一致
+    @Override
+    public CartDto checkout(AuthenticatedUser principal) {
+        Map<String, String> cart = loadCart(principal);
+        Integer cartId = Integer.valueOf(cart.get(CART_ID_FIELD));
+        // 以目前售價建立快照供訂單寫入；購物車中有已下架的產品時不允許結帳
+        CartDto snapshot = toCartDto(principal, cart);
+        if (snapshot.getCartItems().size() < items(cart).size()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Some products in the cart are no longer available");
+        }
+        // 結帳期間不讓排程寫回這個購物車，避免舊內容在結帳清空後又被寫回
+        String userId = String.valueOf(principal.getUserId());
+        redisTemplate.opsForSet().remove(DIRTY_KEY, userId);
+        try {
+            checkoutPersistedCart(principal, cart, cartId);
+        } catch (RuntimeException e) {
+            redisTemplate.opsForSet().add(DIRTY_KEY, userId);
+            throw e;
+        }
+        // 在呼叫端的交易 (例如建立訂單) 提交後才刪除 Redis 購物車；交易回滾時 MySQL 的購物車也還原，
+        // Redis 中的購物車保留並重新標記待寫回
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    deleteCheckedOutCart(principal.getUserId());
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        redisTemplate.opsForSet().add(DIRTY_KEY, userId);
+                    }
+                }
+            });
+        } else {
+            deleteCheckedOutCart(principal.getUserId());
+        }
+        return snapshot;
+    }
+
+    // 交易已提交，刪除失敗時只記錄錯誤，不能讓已完成的結帳變成失敗
+    private void deleteCheckedOutCart(Integer userId) {
+        try {
+            redisTemplate.delete(cartKey(userId));
+        } catch (DataAccessException e) {
+            System.err.println("Failed to delete checked-out Redis cart for user " + userId + ": " + e.getMessage());
+        }
+    }
+
+    private void checkoutPersistedCart(AuthenticatedUser principal, Map<String, String> cart, Integer cartId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Cart persistedCart = writeBack(principal.getUserId(), cart);
+            if (persistedCart.getCartItems().isEmpty()) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cart is empty");
+            }
+            List<StockReservationResult> shortfalls = inventoryHoldService.convertToSale(cartId, persistedCart.getCartItems());
+            if (!shortfalls.isEmpty()) {
+                StockReservationResult shortfall = shortfalls.get(0);
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Not enough stock for product " + shortfall.getProductId()
+                        + ": available " + shortfall.getAvailable() + ", short by " + shortfall.getShortfall());
+            }
+            persistedCart.getCartItems().clear();
+            cartRepository.save(persistedCart);
+        });
+    }
+
+    /**
+     * 批次寫回：一次取出最多 flushBatchSize 個待寫回的購物車，在同一個交易內寫入 MySQL。
+     * 先移出待寫回集合再讀取購物車內容，之後的變更會重新加入集合，不會遺失；寫回失敗時放回集合下次再試。
+     */
+    @Scheduled(fixedDelayString = "${app.cart.redis.flush-interval-ms:5000}")
+    public void flushDirtyCarts() {
+        List<String> userIds;
+        do {
+            userIds = redisTemplate.opsForSet().pop(DIRTY_KEY, flushBatchSize);
+            if (userIds == null || userIds.isEmpty()) {
+                return;
+            }
+            List<String> batch = userIds;
+            try {
+                transactionTemplate.executeWithoutResult(status -> batch.forEach(userId -> {
+                    Map<Object, Object> entries = redisTemplate.opsForHash().entries(cartKey(Integer.valueOf(userId)));
+                    if (entries.containsKey(CART_ID_FIELD)) {
+                        Map<String, String> cart = new HashMap<>();
+                        entries.forEach((field, value) -> cart.put((String) field, (String) value));
+                        writeBack(Integer.valueOf(userId), cart);
+                    }
+                }));
+            } catch (RuntimeException e) {
+                System.err.println("Failed to write back " + batch.size() + " carts, will retry: " + e.getMessage());
+                redisTemplate.opsForSet().add(DIRTY_KEY, batch.toArray(new String[0]));
+                return;
+            }
+        } while (userIds.size() == flushBatchSize);
+    }
+
+    // 關閉前盡量把尚未寫回的購物車寫入 MySQL (即使沒有完成，待寫回集合仍保留在 Redis 中)
+    @PreDestroy
+    public void flushOnShutdown() {
+        try {
+            flushDirtyCarts();
+        } catch (RuntimeException e) {
+            System.err.println("Failed to flush carts on shutdown: " + e.getMessage());
+        }
+    }
+
+    // 讀取 Redis 中的購物車；不存在 (新使用者或已過期) 時以一次 JOIN 查詢從 MySQL 載入
+    private Map<String, String> loadCart(AuthenticatedUser principal) {
+        String key = cartKey(principal.getUserId());
+        Map<Object, Object> entries = redisTemplate.opsForHash().entries(key);
+        if (entries.isEmpty()) {
+            Map<String, String> loaded = transactionTemplate.execute(status -> {
+                // token 中已有 cartId 時直接以 cartId 載入，舊版 token 才依使用者查詢 (必要時建立)
+                Integer cartId = principal.getCartId() != null ? principal.getCartId()
+                        : getOrCreateCart(userRepository.getReferenceById(principal.getUserId())).getCartId();
+                Cart cart = cartRepository.findWithItemsByCartId(cartId)
+                        .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Cart not found"));
+                Map<String, String> fields = new LinkedHashMap<>();
+                fields.put(CART_ID_FIELD, String.valueOf(cart.getCartId()));
+                cart.getCartItems().forEach(item ->
+                        fields.put(itemField(item.getProduct().getId(), item.getWeight()), String.valueOf(item.getQuantity())));
+                return fields;
+            });
+            List<String> args = new ArrayList<>();
+            args.add(String.valueOf(ttl().getSeconds()));
+            loaded.forEach((field, value) -> {
+                args.add(field);
+                args.add(value);
+            });
+            redisTemplate.execute(LOAD_SCRIPT, List.of(key), args.toArray());
+            entries = redisTemplate.opsForHash().entries(key);
+        }
+        Map<String, String> cart = new HashMap<>();
+        entries.forEach((field, value) -> cart.put((String) field, (String) value));
+        return cart;
+    }
+
+    // 先調整庫存保留 (不足時拋出 400)，成功後才寫入 Redis 購物車並標記待寫回
+    private void setItem(AuthenticatedUser principal, Map<String, String> cart, String productId, Integer weight, int quantity) {
+        Integer cartId = Integer.valueOf(cart.get(CART_ID_FIELD));
+        StockReservationResult reservation = inventoryHoldService.updateHold(cartId, productId, weight, quantity);
+        if (!reservation.isReserved()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Not enough stock: requested " + reservation.getRequested()
+                    + ", available " + reservation.getAvailable() + ", short by " + reservation.getShortfall());
+        }
+        if (quantity > 0) {
+            inventoryHoldService.extendHolds(cartId);
+        }
+        redisTemplate.execute(SET_ITEM_SCRIPT, List.of(cartKey(principal.getUserId()), DIRTY_KEY),
+                String.valueOf(ttl().getSeconds()), itemField(productId, weight), String.valueOf(quantity),
+                String.valueOf(principal.getUserId()));
+    }
+
+    // 將 Redis 中的購物車內容同步到 cart_item：更新數量、新增缺少的、刪除已移除的 (需在交易內呼叫)
+    private Cart writeBack(Integer userId, Map<String, String> redisCart) {
+        User user = userRepository.getReferenceById(userId);
+        Cart cart = cartRepository.findWithItemsByUser(user).orElseGet(() -> {
+            Cart newCart = new Cart();
+            newCart.setUser(user);
+            return newCart;
+        });
+        Map<String, Integer> quantities = items(redisCart);
+        List<CartItem> cartItems = cart.getCartItems();
+        cartItems.removeIf(item -> !quantities.containsKey(itemField(item.getProduct().getId(), item.getWeight())));
+        Map<String, CartItem> existingItems = new HashMap<>();
+        cartItems.forEach(item -> existingItems.put(itemField(item.getProduct().getId(), item.getWeight()), item));
+        quantities.forEach((field, quantity) -> {
+            CartItem item = existingItems.get(field);
+            if (item == null) {
+                item = new CartItem();
+                item.setCart(cart);
+                item.setProduct(productRepository.getReferenceById(productIdOf(field)));
+                item.setWeight(weightOf(field));
+                cartItems.add(item);
+            }
+            if (!Objects.equals(item.getQuantity(), quantity)) {
+                item.setQuantity(quantity);
+            }
+        });
+        // Redis 模式的摘要直接由 hash 計算；MySQL 上的合計標記為需重新計算，切換回 database 模式時才會用到
+        cart.setItemCount(null);
+        cart.setTotalAmount(null);
+        return cartRepository.save(cart);
+    }
+
+    private static Map<String, Integer> items(Map<String, String> cart) {
+        Map<String, Integer> quantities = new LinkedHashMap<>();
+        cart.forEach((field, value) -> {
+            if (!CART_ID_FIELD.equals(field)) {
+                quantities.put(field, Integer.valueOf(value));
+            }
+        });
+        return quantities;
+    }
+
+    private Duration ttl() {
+        return Duration.ofDays(ttlDays);
+    }
+
+    private static String cartKey(Integer userId) {
+        return CART_KEY_PREFIX + userId;
+    }
+
+    // 重量為整數，放在前面，產品 id 中即使有冒號也能正確拆開
+    private static String itemField(String productId, Integer weight) {
+        return weight + ":" + productId;
+    }
+
+    private static String productIdOf(String field) {
+        return field.substring(field.indexOf(':') + 1);
+    }
+
+    private static int weightOf(String field) {
+        return Integer.parseInt(field.substring(0, field.indexOf(':')));
+    }
+}
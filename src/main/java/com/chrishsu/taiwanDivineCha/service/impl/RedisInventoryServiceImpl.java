@@ -0,0 +1,436 @@
+package com.chrishsu.taiwanDivineCha.service.impl;
+
+import com.chrishsu.taiwanDivineCha.dto.StockReservationResult;
+import com.chrishsu.taiwanDivineCha.event.ProductChangedEvent;
+import com.chrishsu.taiwanDivineCha.exception.ResourceNotFoundException;
+import com.chrishsu.taiwanDivineCha.repository.ProductRepository;
+import com.chrishsu.taiwanDivineCha.service.InventoryService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * 限量搶購用的 Redis 庫存計數器 (app.inventory.mode=redis 時啟用)。
+ * 每個產品的庫存放在 Redis，以 Lua 腳本在 Redis 內原子地檢查並扣除，不需要鎖定 MySQL 的產品列；
+ * 每次保留 / 歸還的數量同時累加到待寫回的 hash，由排程批次寫回 products.stock。
+ * 另有對帳排程比對 Redis 與「MySQL 庫存 + 尚未寫回的差額」，不一致時以後者修正 Redis。
+ * 所有 key 使用相同的 hash tag，確保在 Redis Cluster 中也能於同一個腳本內操作。
+ */
+@Service
+@ConditionalOnProperty(name = "app.inventory.mode", havingValue = "redis")
+public class RedisInventoryServiceImpl implements InventoryService {
+
+    private static final String KEY_PREFIX = "{inventory}:";
+    private static final String STOCK_KEY_PREFIX = KEY_PREFIX + "stock:";
+    private static final String PENDING_KEY = KEY_PREFIX + "pending";
+    private static final String FLUSHING_KEY = KEY_PREFIX + "pending:flushing";
+    private static final String LOADED_PRODUCTS_KEY = KEY_PREFIX + "products";
+    // 每次寫回完成 (flushing hash 刪除) 或重設計數器後遞增，載入計數器時用來偵測期間 MySQL 的值是否已過期
+    private static final String FLUSH_SEQUENCE_KEY = KEY_PREFIX + "flush-seq";
+    private static final int MAX_LOAD_ATTEMPTS = 3;
+    private static final String SYNC_LOCK_KEY = KEY_PREFIX + "sync-lock";
+    private static final Duration SYNC_LOCK_TTL = Duration.ofSeconds(30);
+    // 管理者修改產品後重設計數器時，等待進行中的寫回完成 (最多 RESET_LOCK_ATTEMPTS * RESET_LOCK_RETRY_MS)
+    private static final int RESET_LOCK_ATTEMPTS = 50;
+    private static final long RESET_LOCK_RETRY_MS = 100;
+
+    // 返回 {1, 剩餘庫存} 成功；{0, 可用庫存} 庫存不足；{-1, 0} 尚未載入
+    private static final RedisScript<List> RESERVE_SCRIPT = RedisScript.of(
+            "local stock = redis.call('GET', KEYS[1]) " +
+            "if not stock then return {-1, 0} end " +
+            "stock = tonumber(stock) " +
+            "local quantity = tonumber(ARGV[1]) " +
+            "if stock < quantity then return {0, stock} end " +
+            "redis.call('DECRBY', KEYS[1], quantity) " +
+            "redis.call('HINCRBY', KEYS[2], ARGV[2], -quantity) " +
+            "return {1, stock - quantity}", List.class);
+
+    // 返回 1 成功；0 尚未載入 (由呼叫端直接歸還到 MySQL)
+    private static final RedisScript<Long> RELEASE_SCRIPT = RedisScript.of(
+            "if redis.call('EXISTS', KEYS[1]) == 0 then return 0 end " +
+            "redis.call('INCRBY', KEYS[1], ARGV[1]) " +
+            "redis.call('HINCRBY', KEYS[2], ARGV[2], ARGV[1]) " +
+            "return 1", Long.class);
+
+    // 以 MySQL 庫存加上尚未寫回 (含寫回中) 的差額初始化計數器，已存在時不覆蓋
+    // 讀取 MySQL 之後若有寫回完成 (序號改變)，MySQL 的值已過期，返回 -1 由呼叫端重新讀取
+    private static final RedisScript<Long> LOAD_SCRIPT = RedisScript.of(
+            "if redis.call('EXISTS', KEYS[1]) == 1 then return 0 end " +
+            "if (redis.call('GET', KEYS[5]) or '0') ~= ARGV[3] then return -1 end " +
+            "local pending = tonumber(redis.call('HGET', KEYS[2], ARGV[2]) or '0') " +
+            "local flushing = tonumber(redis.call('HGET', KEYS[3], ARGV[2]) or '0') " +
+            "redis.call('SET', KEYS[1], tonumber(ARGV[1]) + pending + flushing) " +
+            "redis.call('SADD', KEYS[4], ARGV[2]) " +
+            "return 1", Long.class);
+
+    // 對帳：預期值 = MySQL 庫存 + 尚未寫回的差額；不一致時修正並返回修正前的值，一致時返回 nil
+    private static final RedisScript<Long> RECONCILE_SCRIPT = RedisScript.of(
+            "local stock = redis.call('GET', KEYS[1]) " +
+            "if not stock then return nil end " +
+            "local expected = tonumber(ARGV[1]) + tonumber(redis.call('HGET', KEYS[2], ARGV[2]) or '0') " +
+            "if tonumber(stock) == expected then return nil end " +
+            "redis.call('SET', KEYS[1], expected) " +
+            "return tonumber(stock)", Long.class);
+
+    // 寫回失敗：把寫回中的差額合併回待寫回的 hash 並刪除寫回中的 hash，兩者在同一個腳本內完成，
+    // 中途失敗也不會出現「已合併但尚未刪除」而被下次寫回重複套用的情況；返回合併的產品數
+    private static final RedisScript<Long> MERGE_BACK_SCRIPT = RedisScript.of(
+            "local entries = redis.call('HGETALL', KEYS[1]) " +
+            "for i = 1, #entries, 2 do " +
+            "  redis.call('HINCRBY', KEYS[2], entries[i], entries[i + 1]) " +
+            "end " +
+            "redis.call('DEL', KEYS[1]) " +
+            "return #entries / 2", Long.class);
+
+    // 重設計數器：刪除計數器與該產品尚未寫回 (含寫回中) 的差額，並遞增寫回序號讓進行中的載入重新讀取 MySQL
+    private static final RedisScript<Long> RESET_SCRIPT = RedisScript.of(
+            "redis.call('DEL', KEYS[1]) " +
+            "redis.call('HDEL', KEYS[2], ARGV[1]) " +
+            "redis.call('HDEL', KEYS[3], ARGV[1]) " +
+            "redis.call('INCR', KEYS[4]) " +
+            "return 1", Long.class);
+
+    // 仍持有鎖時延長存活時間並返回 1；鎖已過期或被其他節點取得時返回 0
+    private static final RedisScript<Long> RENEW_SCRIPT = RedisScript.of(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('PEXPIRE', KEYS[1], ARGV[2]) end return 0", Long.class);
+
+    private static final RedisScript<Long> UNLOCK_SCRIPT = RedisScript.of(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end return 0", Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final ProductRepository productRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // 寫回與對帳的分散式鎖識別碼，避免多個節點同時寫回同一批差額
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public RedisInventoryServiceImpl(StringRedisTemplate redisTemplate, ProductRepository productRepository,
+                                     PlatformTransactionManager transactionManager, ApplicationEventPublisher eventPublisher) {
+        this.redisTemplate = redisTemplate;
+        this.productRepository = productRepository;
+        this.eventPublisher = eventPublisher;
+        // 寫回與歸還可能在呼叫端交易完成後 (afterCommit) 執行，一律使用獨立的新交易
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Override
+    public StockReservationResult reserve(String productId, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity to reserve must be positive");
+        }
+        try {
+            List<Long> result = runReserve(productId, quantity);
+            if (result.get(0) < 0) {
+                loadStock(productId);
+                result = runReserve(productId, quantity);
+            }
+            if (result.get(0) == 1) {
+                compensateOnRollback(productId, quantity);
+                return StockReservationResult.success(productId, quantity);
+            }
+            return StockReservationResult.shortfall(productId, quantity, result.get(1).intValue());
+        } catch (DataAccessException e) {
+            // Redis 無法使用時不改用 MySQL 扣庫存：MySQL 尚未包含未寫回的保留量，直接扣除可能超賣
+            System.err.println("Redis inventory unavailable: " + e.getMessage());
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Inventory temporarily unavailable");
+        }
+    }
+
+    // 在呼叫端交易提交後才歸還，避免交易回滾 (購物車項目仍在) 時庫存已被釋出
+    @Override
+    public void release(String productId, int quantity) {
+        if (quantity <= 0) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    releaseNow(productId, quantity);
+                }
+            });
+        } else {
+            releaseNow(productId, quantity);
+        }
+    }
+
+    private void releaseNow(String productId, int quantity) {
+        Long released;
+        try {
+            released = redisTemplate.execute(RELEASE_SCRIPT, List.of(stockKey(productId), PENDING_KEY),
+                    String.valueOf(quantity), productId);
+        } catch (DataAccessException e) {
+            // Redis 無法使用時歸還到 MySQL，之後對帳會以「MySQL + 差額」修正 Redis 計數器
+            System.err.println("Redis inventory unavailable, releasing stock in MySQL: " + e.getMessage());
+            released = null;
+        }
+        if (released == null || released == 0) {
+            // 計數器尚未載入，MySQL 即為準確值，直接歸還
+            transactionTemplate.executeWithoutResult(status -> {
+                if (productRepository.incrementStock(productId, quantity) == 1) {
+                    publishStockChanged(productId);
+                }
+            });
+        }
+    }
+
+    // Redis 的扣除不會隨資料庫交易回滾，呼叫端交易回滾時需另外歸還
+    private void compensateOnRollback(String productId, int quantity) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    releaseNow(productId, quantity);
+                }
+            }
+        });
+    }
+
+    // 產品被管理者修改 (可能直接設定了新的庫存) 或刪除後，刪除計數器，下次保留時重新以 MySQL 載入
+    // 管理者設定的是絕對值，修改前的保留 / 歸還差額一併捨棄 (與資料庫模式中直接覆蓋 stock 相同)，
+    // 否則重新載入時會加回這些差額，下次寫回也會再套用到新的庫存上
+    // 在提交前取得寫回鎖並持有到交易結束：提交時沒有進行中的寫回，提交後到捨棄差額之間也不會有寫回，
+    // 舊的差額不會被套用到新的庫存；交易回滾時不捨棄 (差額仍對應 MySQL 中原本的庫存)
+    // STOCK_CHANGED 是寫回本身發布的，計數器已是最新值，不可刪除
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.getChangeType() == ProductChangedEvent.ChangeType.CREATED
+                || event.getChangeType() == ProductChangedEvent.ChangeType.STOCK_CHANGED) {
+            return;
+        }
+        String productId = event.getProductId();
+        // 每次重設使用自己的鎖識別碼，不會誤解除本節點寫回排程持有的鎖
+        String lockToken = acquireSyncLockWithRetry();
+        if (lockToken == null) {
+            System.err.println("Inventory sync lock busy, resetting Redis inventory counter for " + productId + " without it.");
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            resetCounter(productId, lockToken);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    resetCounter(productId, lockToken);
+                } else if (lockToken != null) {
+                    unlockSyncLock(lockToken);
+                }
+            }
+        });
+    }
+
+    private void resetCounter(String productId, String lockToken) {
+        try {
+            redisTemplate.execute(RESET_SCRIPT,
+                    List.of(stockKey(productId), PENDING_KEY, FLUSHING_KEY, FLUSH_SEQUENCE_KEY), productId);
+        } catch (DataAccessException e) {
+            System.err.println("Failed to reset Redis inventory counter for " + productId + ": " + e.getMessage());
+        } finally {
+            if (lockToken != null) {
+                unlockSyncLock(lockToken);
+            }
+        }
+    }
+
+    // 返回鎖識別碼；等待逾時或 Redis 無法使用時返回 null
+    private String acquireSyncLockWithRetry() {
+        String token = UUID.randomUUID().toString();
+        try {
+            for (int attempt = 0; attempt < RESET_LOCK_ATTEMPTS; attempt++) {
+                if (Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(SYNC_LOCK_KEY, token, SYNC_LOCK_TTL))) {
+                    return token;
+                }
+                Thread.sleep(RESET_LOCK_RETRY_MS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (DataAccessException e) {
+            System.err.println("Failed to acquire inventory sync lock: " + e.getMessage());
+        }
+        return null;
+    }
+
+    private void unlockSyncLock(String token) {
+        try {
+            redisTemplate.execute(UNLOCK_SCRIPT, List.of(SYNC_LOCK_KEY), token);
+        } catch (DataAccessException e) {
+            // 解鎖失敗時等鎖自然過期
+            System.err.println("Failed to release inventory sync lock: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 批次寫回：把待寫回的差額整批改名後讀出，在同一個交易內套用到 MySQL，成功後才刪除。
+     * 改名之後的保留會寫入新的待寫回 hash，不會遺失；交易失敗時把差額合併回去，下次再寫回。
+     */
+    @Scheduled(fixedDelayString = "${app.inventory.redis.flush-interval-ms:1000}")
+    public void flushPendingChanges() {
+        withSyncLock(this::flush);
+    }
+
+    /**
+     * 對帳：先寫回差額，再以「MySQL 庫存 + 寫回後新產生的差額」修正 Redis 中的計數器。
+     * 在寫回鎖之內執行；管理者修改產品時也需取得同一把鎖，期間 MySQL 的庫存不會改變，不會誤判。
+     */
+    @Scheduled(fixedDelayString = "${app.inventory.redis.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        withSyncLock(() -> {
+            flush();
+            Set<String> productIds = redisTemplate.opsForSet().members(LOADED_PRODUCTS_KEY);
+            if (productIds == null || productIds.isEmpty()) {
+                return;
+            }
+            Map<String, Integer> databaseStock = new HashMap<>();
+            for (Object[] row : productRepository.findStockByIdIn(productIds)) {
+                databaseStock.put((String) row[0], (Integer) row[1]);
+            }
+            int repaired = 0;
+            for (String productId : productIds) {
+                // 鎖已過期時其他節點可能已開始寫回，MySQL 的值不再可靠，停止對帳
+                if (!renewSyncLock()) {
+                    System.err.println("Lost inventory sync lock, stopping reconciliation.");
+                    return;
+                }
+                Integer stock = databaseStock.get(productId);
+                if (stock == null) {
+                    // 產品已刪除
+                    redisTemplate.delete(stockKey(productId));
+                    redisTemplate.opsForSet().remove(LOADED_PRODUCTS_KEY, productId);
+                    continue;
+                }
+                Long previous = redisTemplate.execute(RECONCILE_SCRIPT, List.of(stockKey(productId), PENDING_KEY),
+                        String.valueOf(stock), productId);
+                if (previous != null) {
+                    repaired++;
+                    System.out.println("Repaired inventory drift for product " + productId + ": redis=" + previous
+                            + ", mysql=" + stock);
+                }
+            }
+            System.out.println("Inventory reconciliation checked " + productIds.size() + " products, repaired " + repaired + ".");
+        });
+    }
+
+    private void flush() {
+        // 上次寫回中斷時 flushing hash 仍存在，先處理它，否則把目前的差額改名後處理
+        if (!Boolean.TRUE.equals(redisTemplate.hasKey(FLUSHING_KEY))
+                && !Boolean.TRUE.equals(redisTemplate.renameIfAbsent(PENDING_KEY, FLUSHING_KEY))) {
+            return;
+        }
+        Map<Object, Object> entries = redisTemplate.opsForHash().entries(FLUSHING_KEY);
+        List<Map.Entry<String, Integer>> deltas = new ArrayList<>(entries.size());
+        entries.forEach((productId, delta) -> {
+            int value = Integer.parseInt((String) delta);
+            if (value != 0) {
+                deltas.add(Map.entry((String) productId, value));
+            }
+        });
+        try {
+            // MySQL 的 stock 改變後發布事件，交易提交後失效產品快取
+            transactionTemplate.executeWithoutResult(status -> {
+                deltas.forEach(delta -> {
+                    if (productRepository.adjustStock(delta.getKey(), delta.getValue()) == 1) {
+                        publishStockChanged(delta.getKey());
+                    }
+                });
+                // 提交前確認仍持有寫回鎖 (並延長)：寫回太慢而鎖已過期時，其他節點可能正在寫回同一批差額
+                if (!renewSyncLock()) {
+                    throw new LostSyncLockException();
+                }
+            });
+        } catch (LostSyncLockException e) {
+            // 交易已回滾；flushing hash 留給目前持有鎖的節點處理，不可合併回去
+            System.err.println("Lost inventory sync lock before commit, write-back rolled back.");
+            return;
+        } catch (RuntimeException e) {
+            // 寫回失敗：把差額合併回待寫回的 hash，下次再試
+            System.err.println("Failed to write back inventory changes, will retry: " + e.getMessage());
+            redisTemplate.execute(MERGE_BACK_SCRIPT, List.of(FLUSHING_KEY, PENDING_KEY));
+            return;
+        }
+        redisTemplate.delete(FLUSHING_KEY);
+        redisTemplate.opsForValue().increment(FLUSH_SEQUENCE_KEY);
+    }
+
+    private void publishStockChanged(String productId) {
+        eventPublisher.publishEvent(new ProductChangedEvent(productId, ProductChangedEvent.ChangeType.STOCK_CHANGED));
+    }
+
+    private boolean renewSyncLock() {
+        Long renewed = redisTemplate.execute(RENEW_SCRIPT, List.of(SYNC_LOCK_KEY), nodeId,
+                String.valueOf(SYNC_LOCK_TTL.toMillis()));
+        return renewed != null && renewed == 1;
+    }
+
+    private void withSyncLock(Runnable action) {
+        try {
+            if (!Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(SYNC_LOCK_KEY, nodeId, SYNC_LOCK_TTL))) {
+                return; // 其他節點正在寫回
+            }
+            try {
+                action.run();
+            } finally {
+                redisTemplate.execute(UNLOCK_SCRIPT, List.of(SYNC_LOCK_KEY), nodeId);
+            }
+        } catch (DataAccessException e) {
+            System.err.println("Redis inventory write-back skipped: " + e.getMessage());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Long> runReserve(String productId, int quantity) {
+        return redisTemplate.execute(RESERVE_SCRIPT, List.of(stockKey(productId), PENDING_KEY),
+                String.valueOf(quantity), productId);
+    }
+
+    private void loadStock(String productId) {
+        for (int attempt = 0; attempt < MAX_LOAD_ATTEMPTS; attempt++) {
+            // 先讀寫回序號再讀 MySQL，腳本中序號未變才代表 MySQL 的值與差額 hash 一致
+            String flushSequence = redisTemplate.opsForValue().get(FLUSH_SEQUENCE_KEY);
+            Integer stock = productRepository.findStockById(productId);
+            if (stock == null) {
+                throw new ResourceNotFoundException("Product not found with id: " + productId);
+            }
+            Long loaded = redisTemplate.execute(LOAD_SCRIPT,
+                    List.of(stockKey(productId), PENDING_KEY, FLUSHING_KEY, LOADED_PRODUCTS_KEY, FLUSH_SEQUENCE_KEY),
+                    String.valueOf(stock), productId, flushSequence != null ? flushSequence : "0");
+            if (loaded != null && loaded >= 0) {
+                return;
+            }
+        }
+        throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Inventory temporarily unavailable");
+    }
+
+    private static String stockKey(String productId) {
+        return STOCK_KEY_PREFIX + productId;
+    }
+
+    private static class LostSyncLockException extends RuntimeException {
+    }
+}
@@ -28,5 +28,101 @@ CREATE TABLE products (
     features TEXT, -- 特點 (JSON 字符串，可選，允許 NULL)
     origin VARCHAR(100), -- 產地 (可選，允許 NULL)
     created_date DATETIME NOT NULL, -- 創建日期
-    last_modified_date DATETIME NOT NULL -- 最後修改日期
+    last_modified_date DATETIME NOT NULL, -- 最後修改日期
+    INDEX idx_products_category_id (category, id), -- keyset 分頁索引
+    INDEX idx_products_price_id (price, id),
+    INDEX idx_products_last_modified_id (last_modified_date, id)
+);
+
+// cart
+CREATE TABLE cart (
+    cart_id INT AUTO_INCREMENT PRIMARY KEY,
+    user_id INT NOT NULL UNIQUE, -- 每個使用者一個購物車
+    item_count INT DEFAULT 0, -- 商品總件數 (反正規化，NULL 表示需要重新計算)
+    total_amount INT DEFAULT 0, -- 總金額 (反正規化，產品改價後設為 NULL)
+    created_date DATETIME NOT NULL,
+    last_modified_date DATETIME NOT NULL
+);
+
+// cart_item
+// 既有資料若已有重複的 (cart_id, product_id, weight)，需先合併後才能建立唯一索引，例如：
+// UPDATE cart_item k JOIN (SELECT MIN(cart_item_id) id, SUM(quantity) q FROM cart_item GROUP BY cart_id, product_id, weight) d
+//     ON k.cart_item_id = d.id SET k.quantity = d.q;
+// DELETE c FROM cart_item c JOIN cart_item k ON c.cart_id = k.cart_id AND c.product_id = k.product_id
+//     AND c.weight = k.weight AND c.cart_item_id > k.cart_item_id;
+CREATE TABLE cart_item (
+    cart_item_id INT AUTO_INCREMENT PRIMARY KEY,
+    cart_id INT NOT NULL, -- 購物車
+    product_id VARCHAR(255) NOT NULL, -- 產品
+    quantity INT NOT NULL, -- 數量
+    weight INT NOT NULL, -- 重量 (公克)
+    created_date DATETIME NOT NULL,
+    last_modified_date DATETIME NOT NULL,
+    UNIQUE KEY uk_cart_item_cart_product_weight (cart_id, product_id, weight) -- 加入購物車以 upsert 寫入
+);
+
+// inventory_hold
+CREATE TABLE inventory_hold (
+    hold_id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    cart_id INT NOT NULL, -- 購物車
+    product_id VARCHAR(255) NOT NULL, -- 產品
+    weight INT NOT NULL, -- 重量 (公克)
+    quantity INT NOT NULL, -- 已從 products.stock 扣除的數量
+    expires_at DATETIME NOT NULL, -- 保留期限
+    created_date DATETIME NOT NULL,
+    UNIQUE KEY uk_inventory_hold_cart_product_weight (cart_id, product_id, weight),
+    INDEX idx_inventory_hold_expires_at (expires_at) -- 到期回收依此索引分批取出
+);
+
+// orders
+CREATE TABLE orders (
+    order_id BIGINT PRIMARY KEY, -- 由應用程式產生的時間遞增 id (snowflake)
+    order_number VARCHAR(32) NOT NULL UNIQUE, -- 對外顯示的訂單編號
+    user_id INT NOT NULL,
+    status VARCHAR(20) NOT NULL, -- 訂單狀態 (儲存 Enum 的字符串值)
+    delivery_method VARCHAR(50) NOT NULL,
+    payment_method VARCHAR(50) NOT NULL, -- 只保存付款方式，不保存卡號等付款資料
+    recipient_name VARCHAR(255) NOT NULL,
+    recipient_email VARCHAR(255),
+    recipient_phone VARCHAR(255),
+    delivery_address VARCHAR(255), -- 宅配地址
+    pickup_store VARCHAR(255), -- 取貨門市
+    delivery_notes TEXT,
+    item_count INT NOT NULL,
+    total_amount INT NOT NULL,
+    created_date DATETIME NOT NULL,
+    last_modified_date DATETIME NOT NULL,
+    -- 訂單列表的 keyset 分頁索引，包含列表需要的所有欄位 (covering index)
+    INDEX idx_orders_user_created_date (user_id, created_date, order_id, order_number, status, item_count, total_amount), -- 用戶的訂單歷史
+    INDEX idx_orders_status_created_date (status, created_date, order_id, order_number, item_count, total_amount), -- 後台依狀態搜尋
+    INDEX idx_orders_created_date (created_date, order_id, order_number, status, item_count, total_amount) -- 後台不限狀態搜尋
+);
+
+// order_item
+CREATE TABLE order_item (
+    order_item_id BIGINT PRIMARY KEY, -- 由應用程式產生的時間遞增 id (snowflake)
+    order_id BIGINT NOT NULL,
+    product_id VARCHAR(255) NOT NULL, -- 產品 (不設外鍵，產品下架後訂單仍保留)
+    product_name VARCHAR(255) NOT NULL, -- 下單當下的產品名稱
+    weight INT NOT NULL, -- 重量 (公克)
+    unit_price INT NOT NULL, -- 下單當下該重量的售價
+    quantity INT NOT NULL,
+    subtotal INT NOT NULL,
+    created_date DATETIME NOT NULL,
+    INDEX idx_order_item_order_id (order_id)
+);
+
+// outbox_event
+CREATE TABLE outbox_event (
+    event_id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    event_type VARCHAR(50) NOT NULL, -- 事件類型 (儲存 Enum 的字符串值)
+    aggregate_id VARCHAR(64) NOT NULL, -- 事件所屬的用戶 id 或訂單編號
+    payload TEXT NOT NULL, -- 派送所需的資料 (JSON)
+    status VARCHAR(20) NOT NULL, -- PENDING / SENT / FAILED
+    attempts INT NOT NULL, -- 已嘗試派送的次數
+    next_attempt_at DATETIME NOT NULL, -- 下次可派送的時間 (派送中為租約到期時間)
+    last_error VARCHAR(500),
+    created_date DATETIME NOT NULL,
+    sent_date DATETIME,
+    INDEX idx_outbox_event_status_next_attempt_at (status, next_attempt_at) -- 派送時依此索引分批取出
 );
@@ -0,0 +1,47 @@
+package com.chrishsu.taiwanDivineCha.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Keyset 分頁游標：記錄上一頁最後一筆資料的排序欄位值與 id。
+ * 對外以 Base64 (URL safe) 字串傳遞，前端不需理解其內容，只要原樣帶回即可。
+ */
+public class KeysetCursor {
+
+    private static final char SEPARATOR = '\n';
+
+    private final String sortValue;
+    private final String id;
+
+    public KeysetCursor(String sortValue, String id) {
+        this.sortValue = sortValue;
+        this.id = id;
+    }
+
+    public String getSortValue() {
+        return sortValue;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String encode() {
+        String raw = sortValue + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static KeysetCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separatorIndex = raw.indexOf(SEPARATOR);
+            if (separatorIndex < 0) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            return new KeysetCursor(raw.substring(0, separatorIndex), raw.substring(separatorIndex + 1));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+}
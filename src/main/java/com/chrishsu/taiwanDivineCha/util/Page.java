@@ -8,6 +8,8 @@ public class Page<T> {
     private Integer offset;
     private Integer total;
     private List<T> results;
+    // keyset 分頁時下一頁的游標，沒有下一頁時為 null
+    private String nextCursor;
 
     public Integer getLimit() {
         return limit;
@@ -40,4 +42,12 @@ public class Page<T> {
     public void setResults(List<T> results) {
         this.results = results;
     }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
 }
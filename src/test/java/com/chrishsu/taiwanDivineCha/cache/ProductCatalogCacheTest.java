@@ -0,0 +1,84 @@
+package com.chrishsu.taiwanDivineCha.cache;
+
+import com.chrishsu.taiwanDivineCha.dto.ProductDto;
+import com.chrishsu.taiwanDivineCha.event.ProductChangedEvent;
+import com.chrishsu.taiwanDivineCha.event.ProductChangedEvent.ChangeType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+// 庫存變動只失效該產品，不遞增目錄版本號 (列表、搜尋與篩選的 ETag 不變)
+class ProductCatalogCacheTest {
+
+    private RedisProductCacheTier redisTier;
+    private CatalogVersion catalogVersion;
+    private ProductResponseCache responseCache;
+    private ProductCatalogCache catalogCache;
+
+    @BeforeEach
+    void setUp() {
+        // mock 的 Optional 方法返回 empty，等同 Redis 無法使用，版本號使用本地計數器
+        redisTier = mock(RedisProductCacheTier.class);
+        catalogVersion = new CatalogVersion(redisTier);
+        catalogVersion.init();
+        responseCache = new ProductResponseCache(catalogVersion, new ObjectMapper(), 100, 600);
+        catalogCache = new ProductCatalogCache(redisTier, catalogVersion, responseCache, 600, 100);
+    }
+
+    @Test
+    void stockChangeEvictsOnlyThatProductAndKeepsCatalogVersion() {
+        String catalogETag = catalogVersion.current().getETag();
+        String listETag = responseCache.get("all", () -> List.of("list")).getETag();
+        String detailETag = responseCache.get(ProductResponseCache.productKey("p1"), () -> product(5)).getETag();
+        assertThat(catalogCache.getProduct("p1", id -> product(5)).getStock()).isEqualTo(5);
+
+        catalogCache.onProductChanged(new ProductChangedEvent("p1", ChangeType.STOCK_CHANGED));
+
+        assertThat(catalogVersion.current().getETag()).isEqualTo(catalogETag);
+        verify(redisTier, never()).incrementCatalogVersion(anyLong());
+        verify(redisTier).evict(eq("p1"), eq(List.of()));
+        verify(redisTier).broadcast("p1", ChangeType.STOCK_CHANGED);
+
+        // 列表回應仍是原本的項目 (loader 不會被呼叫)
+        assertThat(responseCache.get("all", () -> List.of("reloaded")).getETag()).isEqualTo(listETag);
+        // 單筆產品重新載入，ETag 隨庫存改變
+        assertThat(catalogCache.getProduct("p1", id -> product(4)).getStock()).isEqualTo(4);
+        assertThat(responseCache.get(ProductResponseCache.productKey("p1"), () -> product(4)).getETag())
+                .isNotEqualTo(detailETag);
+    }
+
+    @Test
+    void remoteStockChangeIsNotBroadcastAgain() {
+        catalogCache.onProductChanged(new ProductChangedEvent("p1", ChangeType.STOCK_CHANGED, true));
+
+        verify(redisTier, never()).evict(eq("p1"), anyCollection());
+        verify(redisTier, never()).broadcast("p1", ChangeType.STOCK_CHANGED);
+    }
+
+    @Test
+    void productUpdateStillBumpsCatalogVersion() {
+        String catalogETag = catalogVersion.current().getETag();
+
+        catalogCache.onProductChanged(new ProductChangedEvent("p1", ChangeType.UPDATED));
+
+        assertThat(catalogVersion.current().getETag()).isNotEqualTo(catalogETag);
+    }
+
+    private static ProductDto product(int stock) {
+        ProductDto product = new ProductDto();
+        product.setId("p1");
+        product.setName("三峽碧螺春");
+        product.setStock(stock);
+        return product;
+    }
+}
@@ -0,0 +1,33 @@
+package com.chrishsu.taiwanDivineCha.config;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IdGeneratorConfigTest {
+
+    @Test
+    void usesConfiguredNodeId() {
+        assertThat(IdGeneratorConfig.resolveNodeId(7, false)).isEqualTo(7);
+        assertThat(IdGeneratorConfig.resolveNodeId(7, true)).isEqualTo(7);
+    }
+
+    @Test
+    void singleNodeFallsBackToZero() {
+        assertThat(IdGeneratorConfig.resolveNodeId(-1, true)).isZero();
+    }
+
+    @Test
+    void failsWhenNodeIdIsMissingOutsideSingleNode() {
+        assertThatThrownBy(() -> IdGeneratorConfig.resolveNodeId(-1, false))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("app.id.node-id");
+    }
+
+    @Test
+    void rejectsNodeIdOutOfRange() {
+        assertThatThrownBy(() -> IdGeneratorConfig.resolveNodeId(1024, false))
+                .isInstanceOf(IllegalStateException.class);
+    }
+}
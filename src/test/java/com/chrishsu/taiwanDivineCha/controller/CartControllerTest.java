@@ -0,0 +1,123 @@
+package com.chrishsu.taiwanDivineCha.controller;
+
+import com.chrishsu.taiwanDivineCha.constant.ProductCategory;
+import com.chrishsu.taiwanDivineCha.model.Cart;
+import com.chrishsu.taiwanDivineCha.model.CartItem;
+import com.chrishsu.taiwanDivineCha.model.Product;
+import com.chrishsu.taiwanDivineCha.model.User;
+import com.chrishsu.taiwanDivineCha.repository.CartRepository;
+import com.chrishsu.taiwanDivineCha.repository.ProductRepository;
+import com.chrishsu.taiwanDivineCha.repository.UserRepository;
+import com.chrishsu.taiwanDivineCha.security.JwtUtil;
+import com.chrishsu.taiwanDivineCha.support.SqlStatementCounter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// GET /api/cart 的 SQL 語句數：購物車、項目與產品應一次載入，不隨項目數增加 (沒有 N+1)
+@SpringBootTest
+@AutoConfigureMockMvc
+class CartControllerTest {
+
+    private static final String EMAIL = "cart-statements@example.com";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private final List<String> productIds = new ArrayList<>();
+
+    @AfterEach
+    void cleanUp() {
+        cartRepository.deleteAll();
+        userRepository.deleteAll();
+        productRepository.deleteAllById(productIds);
+        productIds.clear();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 5})
+    void getCartUsesSingleStatementRegardlessOfItemCount(int itemCount) throws Exception {
+        String token = tokenForCartWithItems(itemCount);
+
+        SqlStatementCounter.reset();
+        mockMvc.perform(get("/api/cart").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.cartItems.length()").value(itemCount));
+
+        assertThat(SqlStatementCounter.count()).isEqualTo(1);
+    }
+
+    // 合計失效 (例如產品改價後) 時只多一個寫回合計的 UPDATE
+    @Test
+    void getCartWithStaleTotalsAddsOneUpdate() throws Exception {
+        String token = tokenForCartWithItems(3);
+        Cart cart = cartRepository.findAll().get(0);
+        cart.setItemCount(null);
+        cart.setTotalAmount(null);
+        cartRepository.save(cart);
+
+        SqlStatementCounter.reset();
+        mockMvc.perform(get("/api/cart").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.itemCount").value(3));
+
+        assertThat(SqlStatementCounter.count()).isEqualTo(2);
+    }
+
+    private String tokenForCartWithItems(int itemCount) {
+        User user = new User();
+        user.setEmail(EMAIL);
+        user.setPassword("not-used");
+        user = userRepository.save(user);
+
+        Cart cart = new Cart();
+        cart.setUser(user);
+        for (int i = 0; i < itemCount; i++) {
+            Product product = new Product();
+            product.setId("test-cart-" + i);
+            product.setName("購物車測試茶 " + i);
+            product.setCategory(ProductCategory.BLACK_TEA);
+            product.setImageUrl("/images/test.jpg");
+            product.setPrice(600 + i);
+            product.setStock(10);
+            productIds.add(productRepository.save(product).getId());
+
+            CartItem item = new CartItem();
+            item.setCart(cart);
+            item.setProduct(product);
+            item.setWeight(600);
+            item.setQuantity(1);
+            cart.getCartItems().add(item);
+        }
+        cart.setItemCount(itemCount);
+        cart.setTotalAmount(0);
+        cart = cartRepository.save(cart);
+        return jwtUtil.generateToken(user, cart.getCartId());
+    }
+}
@@ -0,0 +1,49 @@
+package com.chrishsu.taiwanDivineCha.controller;
+
+import com.chrishsu.taiwanDivineCha.cache.CatalogVersion;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Accept-Encoding 的 q 值判斷與 ETag (不需要 Spring context)
+class ProductControllerTest {
+
+    @Test
+    void catalogETagIsWeakAndStillMatchesConditionalGet() {
+        CatalogVersion.Snapshot version = new CatalogVersion.Snapshot("r42", 0);
+        assertThat(version.getETag()).isEqualTo("W/\"r42\"");
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/products");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, version.getETag());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertThat(new ServletWebRequest(request, response).checkNotModified(version.getETag())).isTrue();
+        assertThat(response.getStatus()).isEqualTo(304);
+    }
+
+    @Test
+    void gzipAcceptedOnlyWithPositiveQuality() {
+        assertThat(ProductController.acceptsGzip("gzip, deflate, br")).isTrue();
+        assertThat(ProductController.acceptsGzip("br;q=1.0, GZIP;q=0.5")).isTrue();
+        assertThat(ProductController.acceptsGzip("gzip;q=0")).isFalse();
+        assertThat(ProductController.acceptsGzip("gzip; q=0.0, deflate")).isFalse();
+        assertThat(ProductController.acceptsGzip("deflate, br")).isFalse();
+        assertThat(ProductController.acceptsGzip(null)).isFalse();
+    }
+
+    @Test
+    void wildcardAppliesOnlyWhenGzipNotListed() {
+        assertThat(ProductController.acceptsGzip("*")).isTrue();
+        assertThat(ProductController.acceptsGzip("*;q=0")).isFalse();
+        assertThat(ProductController.acceptsGzip("gzip;q=0, *")).isFalse();
+        assertThat(ProductController.acceptsGzip("gzip;q=0.2, *;q=0")).isTrue();
+    }
+
+    @Test
+    void invalidQualityIsTreatedAsZero() {
+        assertThat(ProductController.acceptsGzip("gzip;q=abc")).isFalse();
+    }
+}
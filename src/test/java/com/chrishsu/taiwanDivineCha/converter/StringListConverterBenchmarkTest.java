@@ -0,0 +1,56 @@
+package com.chrishsu.taiwanDivineCha.converter;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * 每列配置量：StringListConverter 快取命中與每次以 ObjectMapper + TypeReference 重新解析的比較。
+ * 數字依 JVM 與 JIT 而定，只印出結果供前後版本比較，不做斷言；預設不執行，使用 mvn test -Pbenchmark。
+ */
+@Tag("benchmark")
+class StringListConverterBenchmarkTest {
+
+    private static final int ROWS = 20_000;
+
+    private final StringListConverter converter = new StringListConverter();
+
+    @Test
+    void allocationPerRow() throws Exception {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+        long threadId = Thread.currentThread().getId();
+
+        String json = "[\"手工採摘\",\"高山茶區\",\"冷泡熱泡皆宜\"]";
+        ObjectMapper objectMapper = new ObjectMapper();
+        TypeReference<List<String>> type = new TypeReference<>() {};
+
+        // 暖機，讓兩條路徑都完成類別載入與 JIT
+        for (int i = 0; i < ROWS; i++) {
+            converter.convertToEntityAttribute(json);
+            objectMapper.readValue(json, type);
+        }
+
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < ROWS; i++) {
+            converter.convertToEntityAttribute(json);
+        }
+        long cachedPerRow = (threads.getThreadAllocatedBytes(threadId) - before) / ROWS;
+
+        before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < ROWS; i++) {
+            objectMapper.readValue(json, type);
+        }
+        long parsedPerRow = (threads.getThreadAllocatedBytes(threadId) - before) / ROWS;
+
+        System.out.println("StringListConverter allocation per row: cached=" + cachedPerRow
+                + " bytes, ObjectMapper.readValue=" + parsedPerRow + " bytes");
+    }
+}
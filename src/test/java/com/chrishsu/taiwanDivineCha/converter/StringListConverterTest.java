@@ -0,0 +1,71 @@
+package com.chrishsu.taiwanDivineCha.converter;
+
+import org.hibernate.annotations.Immutable;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// StringListConverter 的解析快取與 @Immutable 契約 (不需要 Spring context)
+class StringListConverterTest {
+
+    private final StringListConverter converter = new StringListConverter();
+
+    @Test
+    void sameColumnValueReturnsSameCachedList() {
+        String json = "[\"手工採摘\",\"高山茶區\"]";
+
+        List<String> first = converter.convertToEntityAttribute(json);
+        // 以新的字串實例模擬另一列讀出的相同欄位值
+        List<String> second = converter.convertToEntityAttribute(new String(json));
+
+        assertThat(first).containsExactly("手工採摘", "高山茶區");
+        assertThat(second).isSameAs(first);
+    }
+
+    // @Immutable 讓 Hibernate 不為 dirty checking 深度複製，前提是轉換出的 List 不能被修改
+    @Test
+    void convertedListsAreUnmodifiable() {
+        assertThat(StringListConverter.class).hasAnnotation(Immutable.class);
+
+        List<String> features = converter.convertToEntityAttribute("[\"a\",\"b\"]");
+        assertThatThrownBy(() -> features.add("c")).isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> features.set(0, "c")).isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> converter.convertToEntityAttribute(null).add("c"))
+                .isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    void nullOrBlankColumnIsEmptyList() {
+        assertThat(converter.convertToEntityAttribute(null)).isEmpty();
+        assertThat(converter.convertToEntityAttribute("  ")).isEmpty();
+        assertThat(converter.convertToDatabaseColumn(null)).isNull();
+        assertThat(converter.convertToDatabaseColumn(List.of())).isNull();
+    }
+
+    @Test
+    void roundTripPreservesOrderAndNulls() {
+        List<String> images = new ArrayList<>();
+        images.add("/images/tea-1.jpg");
+        images.add(null);
+        images.add("/images/\"quoted\".jpg");
+
+        String column = converter.convertToDatabaseColumn(images);
+
+        assertThat(converter.convertToEntityAttribute(column)).containsExactlyElementsOf(images);
+    }
+
+    @Test
+    void invalidColumnValueThrows() {
+        assertThatThrownBy(() -> converter.convertToEntityAttribute("not json"))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("List<String>");
+        assertThatThrownBy(() -> converter.convertToEntityAttribute("{\"a\":\"b\"}"))
+                .isInstanceOf(RuntimeException.class);
+        assertThatThrownBy(() -> converter.convertToEntityAttribute("[[\"nested\"]]"))
+                .isInstanceOf(RuntimeException.class);
+    }
+}
@@ -0,0 +1,82 @@
+package com.chrishsu.taiwanDivineCha.service.impl;
+
+import com.chrishsu.taiwanDivineCha.constant.ProductCategory;
+import com.chrishsu.taiwanDivineCha.model.InventoryHold;
+import com.chrishsu.taiwanDivineCha.model.Product;
+import com.chrishsu.taiwanDivineCha.repository.InventoryHoldRepository;
+import com.chrishsu.taiwanDivineCha.repository.ProductRepository;
+import com.chrishsu.taiwanDivineCha.service.InventoryHoldService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 以 INSERT ... ON DUPLICATE KEY UPDATE 建立保留 (H2 MySQL 相容模式)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class InventoryHoldServiceImplTest {
+
+    private static final String PRODUCT_ID = "test-hold";
+    private static final Integer CART_ID = 900001;
+    private static final Integer WEIGHT = 600;
+
+    @Autowired
+    private InventoryHoldService inventoryHoldService;
+
+    @Autowired
+    private InventoryHoldRepository inventoryHoldRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @BeforeEach
+    void setUp() {
+        Product product = new Product();
+        product.setId(PRODUCT_ID);
+        product.setName("保留測試茶");
+        product.setCategory(ProductCategory.OOLONG_TEA);
+        product.setImageUrl("/images/test.jpg");
+        product.setPrice(800);
+        product.setStock(5);
+        productRepository.save(product);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        inventoryHoldRepository.deleteAllInBatch(inventoryHoldRepository.findByCartId(CART_ID));
+        productRepository.deleteById(PRODUCT_ID);
+    }
+
+    @Test
+    void addAndUpdateHoldShareOneRow() {
+        assertThat(inventoryHoldService.addToHold(CART_ID, PRODUCT_ID, WEIGHT, 2).isReserved()).isTrue();
+        assertThat(inventoryHoldService.addToHold(CART_ID, PRODUCT_ID, WEIGHT, 1).isReserved()).isTrue();
+        assertThat(holds()).singleElement().extracting(InventoryHold::getQuantity).isEqualTo(3);
+        assertThat(productRepository.findStockById(PRODUCT_ID)).isEqualTo(2);
+
+        assertThat(inventoryHoldService.updateHold(CART_ID, PRODUCT_ID, WEIGHT, 1).isReserved()).isTrue();
+        assertThat(holds()).singleElement().extracting(InventoryHold::getQuantity).isEqualTo(1);
+        assertThat(productRepository.findStockById(PRODUCT_ID)).isEqualTo(4);
+
+        inventoryHoldService.updateHold(CART_ID, PRODUCT_ID, WEIGHT, 0);
+        assertThat(holds()).isEmpty();
+        assertThat(productRepository.findStockById(PRODUCT_ID)).isEqualTo(5);
+    }
+
+    @Test
+    void shortfallLeavesNoEmptyHold() {
+        assertThat(inventoryHoldService.addToHold(CART_ID, PRODUCT_ID, WEIGHT, 6).isReserved()).isFalse();
+        assertThat(inventoryHoldService.updateHold(CART_ID, PRODUCT_ID, WEIGHT, 6).isReserved()).isFalse();
+
+        assertThat(holds()).isEmpty();
+        assertThat(productRepository.findStockById(PRODUCT_ID)).isEqualTo(5);
+    }
+
+    private List<InventoryHold> holds() {
+        return inventoryHoldRepository.findByCartId(CART_ID);
+    }
+}
@@ -0,0 +1,98 @@
+package com.chrishsu.taiwanDivineCha.service.impl;
+
+import com.chrishsu.taiwanDivineCha.constant.ProductCategory;
+import com.chrishsu.taiwanDivineCha.dto.StockReservationResult;
+import com.chrishsu.taiwanDivineCha.model.Product;
+import com.chrishsu.taiwanDivineCha.repository.ProductRepository;
+import com.chrishsu.taiwanDivineCha.service.InventoryService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 條件式 UPDATE 保留庫存的並發測試 (H2 MySQL 相容模式)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class InventoryServiceImplTest {
+
+    private static final String PRODUCT_ID = "test-last-units";
+    private static final int STOCK = 10;
+    private static final int BUYERS = 200;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @AfterEach
+    void cleanUp() {
+        productRepository.deleteById(PRODUCT_ID);
+    }
+
+    @Test
+    void parallelBuyersNeverOversellLastUnits() throws Exception {
+        productRepository.save(product(PRODUCT_ID, STOCK));
+
+        ExecutorService executor = Executors.newFixedThreadPool(BUYERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<StockReservationResult>> futures = new ArrayList<>(BUYERS);
+        try {
+            for (int i = 0; i < BUYERS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return inventoryService.reserve(PRODUCT_ID, 1);
+                }));
+            }
+            // 所有買家同時開始搶購
+            start.countDown();
+
+            int reserved = 0;
+            for (Future<StockReservationResult> future : futures) {
+                StockReservationResult result = future.get(30, TimeUnit.SECONDS);
+                if (result.isReserved()) {
+                    reserved++;
+                } else {
+                    assertThat(result.getAvailable()).isZero();
+                    assertThat(result.getShortfall()).isEqualTo(1);
+                }
+            }
+
+            assertThat(reserved).isEqualTo(STOCK);
+            assertThat(productRepository.findStockById(PRODUCT_ID)).isZero();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void releaseReturnsStock() {
+        productRepository.save(product(PRODUCT_ID, 1));
+
+        assertThat(inventoryService.reserve(PRODUCT_ID, 1).isReserved()).isTrue();
+        assertThat(inventoryService.reserve(PRODUCT_ID, 1).isReserved()).isFalse();
+        inventoryService.release(PRODUCT_ID, 1);
+
+        assertThat(productRepository.findStockById(PRODUCT_ID)).isEqualTo(1);
+    }
+
+    private static Product product(String id, int stock) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName("並發測試茶");
+        product.setCategory(ProductCategory.GREEN_TEA);
+        product.setImageUrl("/images/test.jpg");
+        product.setPrice(1000);
+        product.setStock(stock);
+        return product;
+    }
+}
@@ -0,0 +1,172 @@
+package com.chrishsu.taiwanDivineCha.service.impl;
+
+import com.chrishsu.taiwanDivineCha.constant.ProductCategory;
+import com.chrishsu.taiwanDivineCha.dto.AddToCartRequest;
+import com.chrishsu.taiwanDivineCha.dto.CreateOrderRequest;
+import com.chrishsu.taiwanDivineCha.dto.OrderSubmissionDto;
+import com.chrishsu.taiwanDivineCha.model.Product;
+import com.chrishsu.taiwanDivineCha.model.User;
+import com.chrishsu.taiwanDivineCha.repository.OrderRepository;
+import com.chrishsu.taiwanDivineCha.repository.ProductRepository;
+import com.chrishsu.taiwanDivineCha.repository.UserRepository;
+import com.chrishsu.taiwanDivineCha.security.AuthenticatedUser;
+import com.chrishsu.taiwanDivineCha.service.CartService;
+import com.chrishsu.taiwanDivineCha.service.OrderService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 經由下單佇列結帳，使用內嵌 H2 (MySQL 相容模式)。
+ * 每位使用者的購物車有 ITEMS_PER_CART 個項目，全部訂單同時送入下單佇列，由 worker 逐筆結帳 (保留轉為銷售、
+ * 清空購物車、批次寫入訂單項目與 outbox)；結帳後庫存只扣一次，且不留下任何保留。
+ * checkoutThroughput 另外量測吞吐量 (checkouts/sec)，標記為 benchmark 預設不執行 (mvn test -Pbenchmark)；
+ * 數字只用於同一台機器上前後版本的比較，不代表 MySQL 上的實際吞吐量。
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class OrderCheckoutTest {
+
+    private static final int BENCHMARK_ORDERS = 200;
+    private static final int ITEMS_PER_CART = 3;
+    private static final int INITIAL_STOCK = 2000;
+    // 所有訂單完成的等待上限
+    private static final long COMPLETION_TIMEOUT_SECONDS = 60;
+    private static final String EMAIL_PREFIX = "checkout-benchmark-";
+    private static final String PRODUCT_PREFIX = "test-benchmark-";
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM order_item WHERE order_id IN (SELECT o.order_id FROM orders o JOIN users u " +
+                "ON o.user_id = u.user_id WHERE u.email LIKE ?)", EMAIL_PREFIX + "%");
+        jdbcTemplate.update("DELETE FROM orders WHERE user_id IN (SELECT user_id FROM users WHERE email LIKE ?)", EMAIL_PREFIX + "%");
+        jdbcTemplate.update("DELETE FROM outbox_event");
+        jdbcTemplate.update("DELETE FROM inventory_hold WHERE product_id LIKE ?", PRODUCT_PREFIX + "%");
+        jdbcTemplate.update("DELETE FROM cart_item WHERE product_id LIKE ?", PRODUCT_PREFIX + "%");
+        jdbcTemplate.update("DELETE FROM cart WHERE user_id IN (SELECT user_id FROM users WHERE email LIKE ?)", EMAIL_PREFIX + "%");
+        jdbcTemplate.update("DELETE FROM users WHERE email LIKE ?", EMAIL_PREFIX + "%");
+        jdbcTemplate.update("DELETE FROM products WHERE id LIKE ?", PRODUCT_PREFIX + "%");
+    }
+
+    @Test
+    void checkoutSellsReservedStockExactlyOnce() throws Exception {
+        checkout(10);
+    }
+
+    @Test
+    @Tag("benchmark")
+    void checkoutThroughput() throws Exception {
+        long elapsedNanos = checkout(BENCHMARK_ORDERS);
+
+        double checkoutsPerSecond = BENCHMARK_ORDERS / (elapsedNanos / 1_000_000_000.0);
+        System.out.printf("Checkout benchmark: %d orders (%d items each) in %d ms, %.1f checkouts/sec%n",
+                BENCHMARK_ORDERS, ITEMS_PER_CART, TimeUnit.NANOSECONDS.toMillis(elapsedNanos), checkoutsPerSecond);
+    }
+
+    // 建立 orders 位使用者的購物車並同時送出訂單，全部建立完成後檢查庫存與保留；返回送出到全部完成的時間 (奈秒)
+    private long checkout(int orders) throws InterruptedException {
+        for (int i = 0; i < ITEMS_PER_CART; i++) {
+            productRepository.save(product(PRODUCT_PREFIX + i));
+        }
+        List<AuthenticatedUser> buyers = new ArrayList<>(orders);
+        for (int i = 0; i < orders; i++) {
+            buyers.add(buyerWithCart(i));
+        }
+
+        long started = System.nanoTime();
+        List<String> orderNumbers = new ArrayList<>(orders);
+        for (AuthenticatedUser buyer : buyers) {
+            orderNumbers.add(orderService.submitOrder(buyer, pickupOrder()).getOrderNumber());
+        }
+        long deadline = started + TimeUnit.SECONDS.toNanos(COMPLETION_TIMEOUT_SECONDS);
+        for (int i = 0; i < orders; i++) {
+            OrderSubmissionDto submission = awaitCompletion(buyers.get(i), orderNumbers.get(i), deadline);
+            assertThat(submission.getState()).as(submission.getMessage()).isEqualTo(OrderSubmissionDto.State.CREATED);
+        }
+        long elapsedNanos = System.nanoTime() - started;
+
+        assertThat(orderRepository.count()).isGreaterThanOrEqualTo(orders);
+        // 每張訂單每個產品各 1 件：加入購物車時已扣庫存，結帳後保留轉為銷售，不應再扣或歸還
+        for (int i = 0; i < ITEMS_PER_CART; i++) {
+            assertThat(productRepository.findStockById(PRODUCT_PREFIX + i)).isEqualTo(INITIAL_STOCK - orders);
+        }
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM inventory_hold WHERE product_id LIKE ?",
+                Integer.class, PRODUCT_PREFIX + "%")).isZero();
+        return elapsedNanos;
+    }
+
+    private AuthenticatedUser buyerWithCart(int index) {
+        User user = new User();
+        user.setEmail(EMAIL_PREFIX + index + "@example.com");
+        user.setPassword("not-used");
+        user = userRepository.save(user);
+        Integer cartId = cartService.getOrCreateCart(user).getCartId();
+        AuthenticatedUser principal = new AuthenticatedUser(user.getUserId(), cartId, user.getEmail());
+        for (int i = 0; i < ITEMS_PER_CART; i++) {
+            AddToCartRequest request = new AddToCartRequest();
+            request.setProductId(PRODUCT_PREFIX + i);
+            request.setWeight(600);
+            request.setQuantity(1);
+            cartService.addToCart(principal, request);
+        }
+        return principal;
+    }
+
+    private OrderSubmissionDto awaitCompletion(AuthenticatedUser buyer, String orderNumber, long deadline)
+            throws InterruptedException {
+        OrderSubmissionDto submission = orderService.getSubmission(buyer, orderNumber);
+        while (submission.getState() == OrderSubmissionDto.State.PROCESSING && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+            submission = orderService.getSubmission(buyer, orderNumber);
+        }
+        return submission;
+    }
+
+    private static CreateOrderRequest pickupOrder() {
+        CreateOrderRequest.PickupDetails pickup = new CreateOrderRequest.PickupDetails();
+        pickup.setRecipientName("測試收件人");
+        pickup.setPickupStore("台北門市");
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setDeliveryMethod("pickup");
+        request.setPaymentMethod("atm");
+        request.setPickupDetails(pickup);
+        return request;
+    }
+
+    private static Product product(String id) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName("基準測試茶");
+        product.setCategory(ProductCategory.GREEN_TEA);
+        product.setImageUrl("/images/test.jpg");
+        product.setPrice(1200);
+        product.setStock(INITIAL_STOCK);
+        return product;
+    }
+}
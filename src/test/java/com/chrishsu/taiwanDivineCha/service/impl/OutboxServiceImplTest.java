@@ -0,0 +1,116 @@
+package com.chrishsu.taiwanDivineCha.service.impl;
+
+import com.chrishsu.taiwanDivineCha.constant.OutboxEventType;
+import com.chrishsu.taiwanDivineCha.constant.OutboxStatus;
+import com.chrishsu.taiwanDivineCha.model.OutboxEvent;
+import com.chrishsu.taiwanDivineCha.repository.OutboxEventRepository;
+import com.chrishsu.taiwanDivineCha.service.EmailService;
+import com.chrishsu.taiwanDivineCha.service.OutboxService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mail.MailSendException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+
+// outbox 派送：租約、成功標記 SENT、失敗時累加次數並延後重試、達到上限時標記 FAILED
+// 測試設定的排程間隔為 1 小時，這裡直接呼叫 dispatchPendingEvents
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        properties = {"app.outbox.max-attempts=2", "app.outbox.retry-base-seconds=30"})
+class OutboxServiceImplTest {
+
+    private static final String EMAIL = "outbox-test@example.com";
+
+    @MockBean
+    private EmailService emailService;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private OutboxServiceImpl outboxDispatcher;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM outbox_event");
+    }
+
+    @Test
+    void successfulDispatchMarksEventSent() {
+        enqueue(OutboxEventType.ORDER_PLACED, Map.of("email", EMAIL, "orderNumber", "20261018000001", "totalAmount", 1200));
+
+        outboxDispatcher.dispatchPendingEvents();
+
+        verify(emailService).sendOrderConfirmationEmail(EMAIL, "20261018000001", 1200);
+        OutboxEvent event = onlyEvent();
+        assertThat(event.getStatus()).isEqualTo(OutboxStatus.SENT);
+        assertThat(event.getAttempts()).isEqualTo(1);
+        assertThat(event.getSentDate()).isNotNull();
+    }
+
+    @Test
+    void failedDispatchBacksOffThenFailsAtMaxAttempts() {
+        doThrow(new MailSendException("smtp down")).when(emailService).sendResetPasswordEmail(anyString(), anyString());
+        enqueue(OutboxEventType.PASSWORD_RESET_REQUESTED, Map.of("email", EMAIL, "link", "http://localhost/reset"));
+
+        LocalDateTime beforeFirstAttempt = LocalDateTime.now();
+        outboxDispatcher.dispatchPendingEvents();
+
+        // 第 1 次失敗：仍為 PENDING，至少延後 retry-base-seconds 才重試
+        OutboxEvent event = onlyEvent();
+        assertThat(event.getStatus()).isEqualTo(OutboxStatus.PENDING);
+        assertThat(event.getAttempts()).isEqualTo(1);
+        assertThat(event.getNextAttemptAt()).isAfterOrEqualTo(beforeFirstAttempt.plusSeconds(30));
+        assertThat(event.getLastError()).contains("smtp down");
+
+        // 尚未到期的事件不會被再次派送
+        outboxDispatcher.dispatchPendingEvents();
+        assertThat(onlyEvent().getAttempts()).isEqualTo(1);
+
+        // 到期後第 2 次失敗達到 max-attempts，標記 FAILED 不再重試
+        jdbcTemplate.update("UPDATE outbox_event SET next_attempt_at = ?", LocalDateTime.now().minusSeconds(1));
+        outboxDispatcher.dispatchPendingEvents();
+
+        event = onlyEvent();
+        assertThat(event.getStatus()).isEqualTo(OutboxStatus.FAILED);
+        assertThat(event.getAttempts()).isEqualTo(2);
+
+        jdbcTemplate.update("UPDATE outbox_event SET next_attempt_at = ?", LocalDateTime.now().minusSeconds(1));
+        outboxDispatcher.dispatchPendingEvents();
+        assertThat(onlyEvent().getAttempts()).isEqualTo(2);
+    }
+
+    private void enqueue(OutboxEventType eventType, Map<String, Object> payload) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                outboxService.enqueue(eventType, EMAIL, payload));
+    }
+
+    private OutboxEvent onlyEvent() {
+        List<OutboxEvent> events = outboxEventRepository.findAll();
+        assertThat(events).hasSize(1);
+        return events.get(0);
+    }
+}
@@ -0,0 +1,95 @@
+package com.chrishsu.taiwanDivineCha.service.impl;
+
+import com.chrishsu.taiwanDivineCha.constant.ProductCategory;
+import com.chrishsu.taiwanDivineCha.dto.ProductPageQuery;
+import com.chrishsu.taiwanDivineCha.dto.ProductSummaryDto;
+import com.chrishsu.taiwanDivineCha.model.Product;
+import com.chrishsu.taiwanDivineCha.repository.ProductRepository;
+import com.chrishsu.taiwanDivineCha.service.ProductService;
+import com.chrishsu.taiwanDivineCha.util.Page;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// keyset 分頁：依分類篩選與不篩選時使用不同的查詢，逐頁讀完的結果需與完整排序一致
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class ProductServiceImplTest {
+
+    private static final String PRODUCT_PREFIX = "test-page-";
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @AfterEach
+    void cleanUp() {
+        productRepository.deleteAll(productRepository.findAllById(List.of(
+                PRODUCT_PREFIX + 0, PRODUCT_PREFIX + 1, PRODUCT_PREFIX + 2, PRODUCT_PREFIX + 3, PRODUCT_PREFIX + 4)));
+    }
+
+    @Test
+    void categoryPagesByPriceFollowKeysetOrder() {
+        // 綠茶價格 800, 800, 500；另有兩筆紅茶不應出現
+        productRepository.save(product(0, ProductCategory.GREEN_TEA, 800));
+        productRepository.save(product(1, ProductCategory.GREEN_TEA, 800));
+        productRepository.save(product(2, ProductCategory.GREEN_TEA, 500));
+        productRepository.save(product(3, ProductCategory.BLACK_TEA, 100));
+        productRepository.save(product(4, ProductCategory.BLACK_TEA, 900));
+
+        assertThat(readAllPages("price", "desc", "綠茶"))
+                .containsExactly(PRODUCT_PREFIX + 1, PRODUCT_PREFIX + 0, PRODUCT_PREFIX + 2);
+        assertThat(readAllPages("price", "asc", "綠茶"))
+                .containsExactly(PRODUCT_PREFIX + 2, PRODUCT_PREFIX + 0, PRODUCT_PREFIX + 1);
+        assertThat(readAllPages("lastModifiedDate", "asc", "紅茶"))
+                .containsExactlyInAnyOrder(PRODUCT_PREFIX + 3, PRODUCT_PREFIX + 4);
+    }
+
+    @Test
+    void uncategorizedPagesIncludeEveryCategory() {
+        productRepository.save(product(0, ProductCategory.GREEN_TEA, 800));
+        productRepository.save(product(3, ProductCategory.BLACK_TEA, 100));
+
+        assertThat(readAllPages("price", "asc", null))
+                .containsSubsequence(PRODUCT_PREFIX + 3, PRODUCT_PREFIX + 0);
+    }
+
+    // 每頁 1 筆，依 nextCursor 讀到最後一頁，只保留測試建立的產品
+    private List<String> readAllPages(String sort, String direction, String category) {
+        List<String> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            ProductPageQuery query = new ProductPageQuery();
+            query.setLimit(1);
+            query.setSort(sort);
+            query.setDirection(direction);
+            query.setCategory(category);
+            query.setCursor(cursor);
+            Page<ProductSummaryDto> page = productService.getProductPage(query);
+            page.getResults().stream()
+                    .map(ProductSummaryDto::getId)
+                    .filter(id -> id.startsWith(PRODUCT_PREFIX))
+                    .forEach(ids::add);
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return ids;
+    }
+
+    private static Product product(int index, ProductCategory category, int price) {
+        Product product = new Product();
+        product.setId(PRODUCT_PREFIX + index);
+        product.setName("分頁測試茶 " + index);
+        product.setCategory(category);
+        product.setImageUrl("/images/test.jpg");
+        product.setPrice(price);
+        product.setStock(10);
+        return product;
+    }
+}
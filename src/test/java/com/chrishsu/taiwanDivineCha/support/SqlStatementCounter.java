@@ -0,0 +1,26 @@
+package com.chrishsu.taiwanDivineCha.support;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * 計算目前執行緒送出的 SQL 語句數 (以 hibernate.session_factory.statement_inspector 註冊)。
+ * 只計算呼叫端自己的執行緒，排程工作 (保留回收、outbox 等) 在背景執行的查詢不會影響計數。
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<Integer> COUNT = ThreadLocal.withInitial(() -> 0);
+
+    @Override
+    public String inspect(String sql) {
+        COUNT.set(COUNT.get() + 1);
+        return sql;
+    }
+
+    public static void reset() {
+        COUNT.set(0);
+    }
+
+    public static int count() {
+        return COUNT.get();
+    }
+}